@@ -0,0 +1,109 @@
+import java.util.*;
+
+
+/**
+ * Checks that mazeToGraph still builds the graph the original implementation built.  For each
+ * maze it rebuilds the adjacency lists the old way, looking every neighbor up in the list of open
+ * squares with ArrayList.contains and lastIndexOf, and compares every neighbor list and the start
+ * and goal node numbers with the ones mazeToGraph gives.
+ *
+ * Usage: java AdjacencyCheck [maze file ...]   (maze1.txt to maze4.txt by default)
+ */
+class AdjacencyCheck {
+
+    /*
+     * The original mazeToGraph and collectOpenSquares: open squares are numbered in reading order,
+     * and each neighbor's number is found by searching the list of open squares
+     */
+    static MazeGraph.ProcessedGraph oldMazeToGraph(ArrayList<String> mazelist) {
+        ArrayList<MazeGraph.Position> openList = new ArrayList<MazeGraph.Position>();
+        MazeGraph.Position startPos = null;
+        MazeGraph.Position goalPos = null;
+        for (int row = 0; row < mazelist.size(); row++) {
+            String rowString = mazelist.get(row);
+            for (int col = 0; col < rowString.length(); col++) {
+                char val = Character.toUpperCase(rowString.charAt(col));
+                if (" SG".indexOf(val) != -1) {
+                    openList.add(new MazeGraph.Position(row, col));
+                }
+                if ("S".indexOf(val) != -1) {
+                    startPos = new MazeGraph.Position(row, col);
+                } else if ("G".indexOf(val) != -1) {
+                    goalPos = new MazeGraph.Position(row, col);
+                }
+            }
+        }
+        if (startPos == null || goalPos == null) {
+            return null;
+        }
+
+        int numOpen = openList.size();
+        ListGraph mazegraph = new ListGraph(numOpen);
+        for (int i = 0; i < numOpen; i++) {
+            int x = openList.get(i).x;
+            int y = openList.get(i).y;
+            for (int j = -1; j <= 1; j += 2) {
+                MazeGraph.Position neigh = new MazeGraph.Position(x + j, y);
+                if (openList.contains(neigh)) {
+                    mazegraph.addEdge(i, openList.lastIndexOf(neigh));
+                }
+            }
+            for (int k = -1; k <= 1; k += 2) {
+                MazeGraph.Position neigh = new MazeGraph.Position(x, y + k);
+                if (openList.contains(neigh)) {
+                    mazegraph.addEdge(i, openList.lastIndexOf(neigh));
+                }
+            }
+        }
+        return new MazeGraph.ProcessedGraph(openList.lastIndexOf(startPos), openList.lastIndexOf(goalPos), mazegraph);
+    }
+
+    /**
+     * Takes in a maze file and returns a description of the first difference between the old and
+     * new graphs, or null if they are the same
+     */
+    static String compare(String mazeFile) {
+        ArrayList<String> maze = MazeGraph.readMaze(mazeFile);
+        MazeGraph.ProcessedGraph expected = oldMazeToGraph(maze);
+        MazeGraph.ProcessedGraph actual = MazeGraph.mazeToGraph(maze);
+        if (expected == null || actual == null) {
+            return (expected == actual) ? null : "only one of the graphs was built";
+        }
+        if (expected.startNode != actual.startNode || expected.goalNode != actual.goalNode) {
+            return "start/goal " + actual.startNode + "/" + actual.goalNode + ", expected "
+                   + expected.startNode + "/" + expected.goalNode;
+        }
+        ListGraph expectedGraph = (ListGraph) expected.graph;
+        ListGraph actualGraph = (ListGraph) actual.graph;
+        if (expectedGraph.getSize() != actualGraph.getSize()) {
+            return actualGraph.getSize() + " nodes, expected " + expectedGraph.getSize();
+        }
+        for (int v = 0; v < expectedGraph.getSize(); v++) {
+            if (!expectedGraph.getNeighbors(v).equals(actualGraph.getNeighbors(v))) {
+                return "node " + v + " has neighbors " + actualGraph.getNeighbors(v) + ", expected "
+                       + expectedGraph.getNeighbors(v);
+            }
+        }
+        return null;
+    }
+
+
+
+    public static void main(String[] args) {
+        // Compares the old contains/lastIndexOf adjacency with the new one on maze1 to maze4
+        String[] files = (args.length > 0) ? args : new String[] {"maze1.txt", "maze2.txt", "maze3.txt", "maze4.txt"};
+        int failures = 0;
+        for (String file : files) {
+            String difference = compare(file);
+            if (difference == null) {
+                System.out.println(file + ": same adjacency");
+            } else {
+                System.out.println(file + ": " + difference);
+                failures++;
+            }
+        }
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+}
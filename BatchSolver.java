@@ -0,0 +1,224 @@
+import java.io.*;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+
+/**
+ * Solves every maze file in a directory, or every file matching a glob, in parallel.  Files are
+ * loaded with MazeLoader on an I/O executor (virtual threads when the JVM has them) and solved on a
+ * fixed pool with one thread per core.  A line of results is written to the result file as soon as each maze is
+ * done, so results stream out in completion order.  A file that cannot be read or parsed is reported
+ * with an ERROR status and MazeLoader's description of the problem, and does not stop the batch.
+ *
+ * Usage: java BatchSolver <directory | glob> <result file> [threads]
+ */
+class BatchSolver {
+    protected ExecutorService ioExecutor;
+    protected ExecutorService solveExecutor;
+    protected Semaphore inFlight;      // bounds the number of mazes held in memory at once
+    protected Writer out;
+    protected int solved;
+    protected int failed;
+
+    public BatchSolver(int threads, Writer out) {
+        this.ioExecutor = newIoExecutor();
+        this.solveExecutor = Executors.newFixedThreadPool(threads);
+        this.inFlight = new Semaphore(4 * threads);
+        this.out = out;
+    }
+
+    /**
+     * Returns an executor that runs each task on a new virtual thread if this JVM supports them, and
+     * otherwise a cached thread pool.  Looked up reflectively so the code also runs on older JVMs.
+     */
+    static ExecutorService newIoExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    /**
+     * Takes in a directory or a glob such as mazes/*.txt and returns the matching files, sorted
+     */
+    public static List<Path> listMazeFiles(String dirOrGlob) throws IOException {
+        Path dir = Paths.get(dirOrGlob);
+        String glob = "*";
+        if (!Files.isDirectory(dir)) {
+            Path parent = dir.getParent();
+            glob = dir.getFileName().toString();
+            dir = (parent == null) ? Paths.get(".") : parent;
+        }
+        List<Path> files = new ArrayList<Path>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, glob)) {
+            for (Path file : stream) {
+                if (Files.isRegularFile(file)) {
+                    files.add(file);
+                }
+            }
+        }
+        Collections.sort(files);
+        return files;
+    }
+
+    /**
+     * Solves all the files and waits until every result has been written.  A failure to write the
+     * result file, or any other failure of the pipeline, is thrown as an IOException naming the
+     * file it happened on; an Error such as OutOfMemoryError is thrown as it is.
+     */
+    public void solveAll(List<Path> files) throws IOException, InterruptedException {
+        writeLine("file,status,pathLength,rows,cols,loadMillis,solveMillis,message");
+        List<CompletableFuture<Void>> pending = new ArrayList<CompletableFuture<Void>>();
+        for (final Path file : files) {
+            inFlight.acquire();
+            CompletableFuture<Void> done = CompletableFuture
+                    .supplyAsync(() -> read(file), ioExecutor)
+                    .thenApplyAsync(this::solve, solveExecutor)
+                    .thenAccept(this::record)
+                    .whenComplete((ignored, error) -> inFlight.release());
+            pending.add(done);
+        }
+        for (int i = 0; i < pending.size(); i++) {
+            try {
+                pending.get(i).get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof Error) {
+                    // such as OutOfMemoryError while loading a huge maze; not something to report as a line
+                    throw (Error) cause;
+                }
+                if (cause instanceof UncheckedIOException) {
+                    // record() could not write this file's line to the result file
+                    throw new IOException("Failed to write the result for " + files.get(i), cause.getCause());
+                }
+                // read() and solve() report a bad maze as an ERROR line, so this is a failure of the
+                // pipeline itself
+                throw new IOException("Failed to process " + files.get(i) + ": " + cause, cause);
+            }
+        }
+        out.flush();
+    }
+
+    public void shutdown() {
+        ioExecutor.shutdown();
+        solveExecutor.shutdown();
+    }
+
+    /*
+     * The outcome of one file as it moves through the pipeline
+     */
+    static class Result {
+        Path file;
+        GridGraph grid;
+        String status = "OK";
+        String message = "";
+        int pathLength = -1;
+        int rows = -1;
+        int cols = -1;
+        long loadNanos;
+        long solveNanos;
+    }
+
+    private Result read(Path file) {
+        Result result = new Result();
+        result.file = file;
+        long start = System.nanoTime();
+        try {
+            result.grid = MazeLoader.load(file);
+            result.rows = result.grid.getHeight();
+            result.cols = result.grid.getWidth();
+        } catch (IOException | RuntimeException e) {
+            result.status = "ERROR";
+            result.message = e.getMessage();
+        }
+        result.loadNanos = System.nanoTime() - start;
+        return result;
+    }
+
+    private Result solve(Result result) {
+        if (result.grid == null) {
+            return result;
+        }
+        try {
+            long start = System.nanoTime();
+            //one search finds the nearest start and goal, however many the maze has
+            MazeGraph.SearchResult search = MazeGraph.multiSourceBFS(result.grid, result.grid.startNodes,
+                                                                     result.grid.goalNodes);
+            result.solveNanos = System.nanoTime() - start;
+            //MazeLoader builds the grid as it parses, so there is no separate build time
+            SearchMetrics.record(result.file.toString(), "Multi-source BFS", result.loadNanos, 0, result.solveNanos, search);
+            if (search.path == null) {
+                result.status = "NO_PATH";
+            } else {
+                result.pathLength = search.path.size();
+            }
+        } catch (RuntimeException e) {
+            result.status = "ERROR";
+            result.message = e.toString();
+        }
+        result.grid = null;
+        return result;
+    }
+
+    private synchronized void record(Result result) {
+        if (result.status.equals("ERROR")) {
+            failed++;
+        } else {
+            solved++;
+        }
+        try {
+            writeLine(csv(result.file.toString()) + "," + result.status + "," + result.pathLength + ","
+                      + result.rows + "," + result.cols + "," + millis(result.loadNanos) + ","
+                      + millis(result.solveNanos) + "," + csv(String.valueOf(result.message)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private synchronized void writeLine(String line) throws IOException {
+        out.write(line);
+        out.write('\n');
+        out.flush();
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+
+    private static String csv(String value) {
+        if (value.indexOf(',') == -1 && value.indexOf('"') == -1) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2) {
+            System.err.println("Usage: java BatchSolver <directory | glob> <result file> [threads]");
+            System.exit(2);
+        }
+        int threads = (args.length > 2) ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        List<Path> files = listMazeFiles(args[0]);
+        //-Dmaze.metrics=summary, csv:<file> or jfr turns on the per-solve metrics
+        SearchMetrics.configure(System.getProperty("maze.metrics"));
+
+        long start = System.nanoTime();
+        try (Writer out = Files.newBufferedWriter(Paths.get(args[1]), StandardCharsets.UTF_8)) {
+            BatchSolver batch = new BatchSolver(threads, out);
+            try {
+                batch.solveAll(files);
+            } finally {
+                batch.shutdown();
+                SearchMetrics.close();
+            }
+            long elapsed = System.nanoTime() - start;
+            System.out.printf("%d files (%d failed) in %.1f ms on %d threads, %.0f files/s%n", files.size(),
+                              batch.failed, elapsed / 1e6, threads, files.size() / (elapsed / 1e9));
+        }
+    }
+}
@@ -0,0 +1,121 @@
+import java.util.*;
+
+
+/**
+ * A monotone priority queue of int node numbers with small int keys, for Dijkstra on graphs whose
+ * edge weights are at most maxWeight (Dial's algorithm).  While Dijkstra runs, every key in the
+ * queue lies between the last key taken out and that key plus maxWeight, so maxWeight + 1 buckets
+ * used round-robin hold every node by its key.  Each bucket is a doubly linked list threaded
+ * through two int arrays, so insert, decreaseKey and pollMin take constant time (plus skipping
+ * empty buckets) and compare no keys.  No objects are allocated after construction.
+ *
+ * Keys must never be lower than the key last taken out, and never more than maxWeight above it.
+ */
+class BucketQueue {
+    protected int[] head;      // head[b] is the first node in bucket b, or -1 if the bucket is empty
+    protected int[] next;      // next[node] is the node after it in its bucket, or -1
+    protected int[] prev;      // prev[node] is the node before it, -1 at the head, or -2 if it is not queued
+    protected int[] key;       // key[node] is the node's current key
+    protected int current;     // the key of the bucket pollMin looks at first
+    protected int size;
+
+    /**
+     * Constructor takes in the number of nodes that may be put in the queue and the largest
+     * edge weight
+     */
+    public BucketQueue(int capacity, int maxWeight) {
+        head = new int[maxWeight + 1];
+        next = new int[capacity];
+        prev = new int[capacity];
+        key = new int[capacity];
+        Arrays.fill(head, -1);
+        Arrays.fill(prev, -2);
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int node) {
+        return prev[node] != -2;
+    }
+
+    public int getKey(int node) {
+        return key[node];
+    }
+
+    /**
+     * Adds a node that is not in the queue yet
+     */
+    public void insert(int node, int nodeKey) {
+        key[node] = nodeKey;
+        int b = nodeKey % head.length;
+        next[node] = head[b];
+        prev[node] = -1;
+        if (head[b] != -1) {
+            prev[head[b]] = node;
+        }
+        head[b] = node;
+        size++;
+    }
+
+    /**
+     * Lowers the key of a node that is already in the queue.  A key that is not lower is ignored.
+     */
+    public void decreaseKey(int node, int nodeKey) {
+        if (nodeKey < key[node]) {
+            unlink(node);
+            insert(node, nodeKey);
+        }
+    }
+
+    /**
+     * Removes and returns a node with the smallest key
+     */
+    public int pollMin() {
+        while (head[current % head.length] == -1) {
+            current++;
+        }
+        int min = head[current % head.length];
+        unlink(min);
+        return min;
+    }
+
+    private void unlink(int node) {
+        int b = key[node] % head.length;
+        if (prev[node] == -1) {
+            head[b] = next[node];
+        } else {
+            next[prev[node]] = next[node];
+        }
+        if (next[node] != -1) {
+            prev[next[node]] = prev[node];
+        }
+        prev[node] = -2;
+        size--;
+    }
+
+
+
+    public static void main(String[] args) {
+        // A test example
+        BucketQueue q = new BucketQueue(5, 9);
+        q.insert(0, 0);
+        q.insert(1, 7);
+        q.insert(2, 9);
+        q.insert(3, 3);
+        q.decreaseKey(2, 3);
+        while (!q.isEmpty()) {
+            int node = q.pollMin();
+            System.out.print(node + ":" + q.getKey(node) + " ");
+            if (node == 0) {
+                q.insert(4, 8);
+            }
+        }
+        System.out.println();
+    }
+}
@@ -0,0 +1,99 @@
+import java.util.*;
+
+
+/**
+ * The connected components of an undirected graph, found with one linear flood fill.  Once built,
+ * it tells in constant time whether two nodes are connected at all, so a search whose goal is in a
+ * different component from its start can be turned down before it floods the start's component.
+ */
+class ComponentIndex {
+    protected int[] componentOf;     // componentOf[v] is the number of v's component
+    protected int[] componentSize;   // componentSize[c] is the number of nodes in component c
+    protected int numComponents;
+
+    /**
+     * Constructor takes in a graph and labels its components, numbering them in order of their
+     * lowest node
+     */
+    public ComponentIndex(IntGraph graph) {
+        int n = graph.getSize();
+        componentOf = new int[n];
+        Arrays.fill(componentOf, -1);
+        int[] sizes = new int[16];
+        int[] stack = new int[n];
+        int[] neighbors = new int[graph.maxDegree()];
+
+        for (int root = 0; root < n; root++) {
+            if (componentOf[root] != -1) {
+                continue;
+            }
+            int c = numComponents++;
+            int count = 0;
+            int top = 0;
+            componentOf[root] = c;
+            stack[top++] = root;
+            while (top > 0) {
+                int v = stack[--top];
+                count++;
+                int numNeighbors = graph.copyNeighbors(v, neighbors);
+                for (int i = 0; i < numNeighbors; i++) {
+                    int u = neighbors[i];
+                    if (componentOf[u] == -1) {
+                        componentOf[u] = c;
+                        stack[top++] = u;
+                    }
+                }
+            }
+            if (c == sizes.length) {
+                sizes = Arrays.copyOf(sizes, c * 2);
+            }
+            sizes[c] = count;
+        }
+        componentSize = Arrays.copyOf(sizes, numComponents);
+    }
+
+    /**
+     * Takes in two nodes, and checks to see if there is any path between them
+     */
+    public boolean connected(int node1, int node2) {
+        if ((0 <= node1) && (node1 < componentOf.length) && (0 <= node2) && (node2 < componentOf.length)) {
+            return componentOf[node1] == componentOf[node2];
+        }
+        return false;
+    }
+
+    public int componentOf(int node) {
+        return componentOf[node];
+    }
+
+    public int getComponentCount() {
+        return numComponents;
+    }
+
+    public int getComponentSize(int component) {
+        return componentSize[component];
+    }
+
+    public int getLargestComponentSize() {
+        int max = 0;
+        for (int size : componentSize) {
+            max = Math.max(max, size);
+        }
+        return max;
+    }
+
+    /**
+     * Returns the number of components of each size, smallest size first
+     */
+    public SortedMap<Integer, Integer> getSizeHistogram() {
+        SortedMap<Integer, Integer> histogram = new TreeMap<Integer, Integer>();
+        for (int size : componentSize) {
+            histogram.merge(size, 1, Integer::sum);
+        }
+        return histogram;
+    }
+
+    public String toString() {
+        return numComponents + " components, largest " + getLargestComponentSize() + " nodes, sizes " + getSizeHistogram();
+    }
+}
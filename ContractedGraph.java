@@ -0,0 +1,222 @@
+import java.util.*;
+
+
+/**
+ * A maze graph with its corridors squeezed out.  Most open squares in a maze of one-square-wide
+ * corridors have exactly two neighbors, and a search learns nothing by stopping at them.  This class
+ * keeps only the junctions, dead ends, start and goal, and joins them with weighted edges, one per
+ * corridor, whose weight is the corridor's length.  Each edge remembers the squares it replaced, so
+ * a path found in the contracted graph can be expanded back into the original node sequence.
+ */
+class ContractedGraph {
+    public CsrGraph graph;        // the weighted graph between kept nodes
+    public int startNode;         // the start, as a contracted node number
+    public int goalNode;          // the goal, as a contracted node number
+    protected int[] keptNodes;    // keptNodes[c] is the original node number of contracted node c
+    protected int[] contractedOf; // contractedOf[v] is v's contracted node number, or -1 if v was squeezed out
+    protected int[] chainStart;   // the squeezed-out nodes of edge e are chainNodes[chainStart[e] .. chainStart[e+1]-1],
+    protected int[] chainNodes;   //   in order from the edge's source to its target
+    protected int originalSize;   // the number of nodes in the original graph
+
+    protected ContractedGraph() {
+    }
+
+    /**
+     * Contracts the graph of a ProcessedGraph, keeping its start and goal
+     */
+    public static ContractedGraph contract(MazeGraph.ProcessedGraph processedGraph) {
+        return contract(processedGraph.graph, processedGraph.startNode, processedGraph.goalNode);
+    }
+
+    /**
+     * Takes in an undirected graph and its start and goal nodes, and contracts every maximal chain of
+     * nodes with two neighbors into a single edge.  Nodes on a closed loop of two-neighbor nodes with
+     * no junction on it cannot be reached from the kept nodes, and are dropped.
+     */
+    public static ContractedGraph contract(IntGraph original, int start, int goal) {
+        int n = original.getSize();
+        int[] neighbors = new int[Math.max(original.maxDegree(), 1)];
+
+        ContractedGraph result = new ContractedGraph();
+        result.originalSize = n;
+        result.contractedOf = new int[n];
+        int numKept = 0;
+        for (int v = 0; v < n; v++) {
+            if (v == start || v == goal || distinctNeighbors(original, v, neighbors) != 2) {
+                result.contractedOf[v] = numKept++;
+            } else {
+                result.contractedOf[v] = -1;
+            }
+        }
+        result.keptNodes = new int[numKept];
+        for (int v = 0; v < n; v++) {
+            if (result.contractedOf[v] != -1) {
+                result.keptNodes[result.contractedOf[v]] = v;
+            }
+        }
+
+        // walk out of every kept node along each of its neighbors until the next kept node.  Each
+        // corridor is walked from both of its ends, so every edge goes in once in each direction.
+        // Doing the kept nodes in order means the edges reach the builder grouped by source, so edge
+        // e of the built graph is the e-th one added here, whose squeezed-out nodes start at chainStart[e]
+        CsrGraph.Builder builder = new CsrGraph.Builder(numKept);
+        IntList chainStart = new IntList();
+        IntList chainNodes = new IntList();
+        for (int c = 0; c < numKept; c++) {
+            int source = result.keptNodes[c];
+            int numNeighbors = distinctNeighbors(original, source, neighbors);
+            for (int i = 0; i < numNeighbors; i++) {
+                int chainBegin = chainNodes.size();
+                int prev = source;
+                int current = neighbors[i];
+                while (result.contractedOf[current] == -1) {
+                    chainNodes.add(current);
+                    int next = otherNeighbor(original, current, prev, neighbors);
+                    prev = current;
+                    current = next;
+                }
+                // the neighbor list is overwritten by the walk, so read it again
+                numNeighbors = distinctNeighbors(original, source, neighbors);
+                if (current == source && chainNodes.size() > chainBegin) {
+                    // a corridor that loops back to where it started is never on a shortest path
+                    chainNodes.truncate(chainBegin);
+                    continue;
+                }
+                builder.addDirectedEdge(c, result.contractedOf[current], chainNodes.size() - chainBegin + 1);
+                chainStart.add(chainBegin);
+            }
+        }
+        chainStart.add(chainNodes.size());
+
+        result.graph = builder.build();
+        result.chainStart = chainStart.toArray();
+        result.chainNodes = chainNodes.toArray();
+        result.startNode = result.contractedOf[start];
+        result.goalNode = result.contractedOf[goal];
+        return result;
+    }
+
+    /*
+     * Copies the neighbors of a node into buf with duplicates removed (a ListGraph built from a maze
+     * lists each neighbor twice), and returns how many there are.
+     */
+    private static int distinctNeighbors(IntGraph graph, int node, int[] buf) {
+        int count = graph.copyNeighbors(node, buf);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            boolean seen = false;
+            for (int j = 0; j < distinct; j++) {
+                if (buf[j] == buf[i]) {
+                    seen = true;
+                    break;
+                }
+            }
+            if (!seen) {
+                buf[distinct++] = buf[i];
+            }
+        }
+        return distinct;
+    }
+
+    //The neighbor of a two-neighbor node that is not prev
+    private static int otherNeighbor(IntGraph graph, int node, int prev, int[] buf) {
+        int count = distinctNeighbors(graph, node, buf);
+        for (int i = 0; i < count; i++) {
+            if (buf[i] != prev) {
+                return buf[i];
+            }
+        }
+        return prev;
+    }
+
+    /**
+     * Returns the number of nodes in the original graph divided by the number kept
+     */
+    public double compressionRatio() {
+        return (double) originalSize / Math.max(graph.getSize(), 1);
+    }
+
+    public int getOriginalSize() {
+        return originalSize;
+    }
+
+    /**
+     * Searches the contracted graph from start to goal with Dijkstra's algorithm and returns the path
+     * expanded back to original node numbers, in the same form as MazeGraph.BFS.  The expanded count
+     * is the number of contracted nodes the search expanded.
+     */
+    public MazeGraph.SearchResult search() {
+        MazeGraph.SearchResult contracted = MazeGraph.dijkstra(graph, startNode, goalNode);
+        return new MazeGraph.SearchResult(expandPath(contracted.path), contracted.expanded);
+    }
+
+    /**
+     * Takes a path of contracted node numbers in the form findPath returns (from the node before the
+     * goal back to the start) and returns the same path through the original graph, in the same form.
+     */
+    public ArrayList<Integer> expandPath(ArrayList<Integer> contractedPath) {
+        if (contractedPath == null) {
+            return null;
+        }
+        // the full route from start to goal, in contracted nodes
+        int[] route = new int[contractedPath.size() + 1];
+        for (int i = 0; i < contractedPath.size(); i++) {
+            route[contractedPath.size() - 1 - i] = contractedPath.get(i);
+        }
+        route[contractedPath.size()] = goalNode;
+
+        ArrayList<Integer> forward = new ArrayList<Integer>();
+        forward.add(keptNodes[route[0]]);
+        for (int i = 0; i + 1 < route.length; i++) {
+            int e = cheapestEdge(route[i], route[i + 1]);
+            for (int k = chainStart[e]; k < chainStart[e + 1]; k++) {
+                forward.add(chainNodes[k]);
+            }
+            forward.add(keptNodes[route[i + 1]]);
+        }
+
+        ArrayList<Integer> path = new ArrayList<Integer>(forward.size());
+        for (int i = forward.size() - 2; i >= 0; i--) {
+            path.add(forward.get(i));
+        }
+        return path;
+    }
+
+    //The lightest of the (possibly parallel) edges from one contracted node to another
+    private int cheapestEdge(int from, int to) {
+        int best = -1;
+        for (int e = graph.firstEdge(from); e < graph.endEdge(from); e++) {
+            if (graph.edgeTarget(e) == to && (best == -1 || graph.edgeWeight(e) < graph.edgeWeight(best))) {
+                best = e;
+            }
+        }
+        return best;
+    }
+
+    /*
+     * A growable array of ints, used while the contracted graph is being put together
+     */
+    private static class IntList {
+        private int[] values = new int[16];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void truncate(int newSize) {
+            size = newSize;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,248 @@
+import java.util.*;
+
+
+/**
+ * An immutable graph stored in compressed sparse row form.  The neighbors of node i are
+ * targets[offsets[i]] .. targets[offsets[i+1] - 1], so the whole graph is two int arrays with no
+ * per-node or per-edge objects.  Graphs are put together with a CsrGraph.Builder, which accepts
+ * the same addEdge calls as ListGraph.  addEdge adds an undirected edge, stored once in each
+ * endpoint's list, and addDirectedEdge adds an edge in one direction only, so a graph can be
+ * undirected, directed, or a mix, such as a terrain maze where the weight of a step depends on the
+ * square it enters.  Edges may optionally carry an int weight, and a graph built without weights
+ * treats every edge as weight 1.
+ */
+class CsrGraph implements IntGraph {
+    protected int[] offsets;   // offsets[i] is the index in targets of node i's first neighbor
+    protected int[] targets;   // the neighbor lists of all nodes, one after another
+    protected int[] weights;   // weights[e] is the weight of edge e, or null if the graph is unweighted
+    protected int numNodes;    // the number of nodes in the graph
+    protected boolean sorted;  // true if every neighbor list is in increasing order
+    protected int maxDegree;   // the length of the longest neighbor list
+
+    /**
+     * Constructor takes in the finished offset and target arrays.  Use a Builder instead of
+     * calling this directly.
+     */
+    protected CsrGraph(int numNodes, int[] offsets, int[] targets, int[] weights, boolean sorted) {
+        this.numNodes = numNodes;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.sorted = sorted;
+        for (int i = 0; i < numNodes; i++) {
+            maxDegree = Math.max(maxDegree, offsets[i + 1] - offsets[i]);
+        }
+    }
+
+    /**
+     * Collects edges for a CsrGraph.  Like ListGraph, addEdge stores each edge in both directions;
+     * addDirectedEdge stores it in one direction only, from fromNode to toNode.  Each node's neighbors
+     * keep the order in which their edges were added.
+     */
+    static class Builder {
+        private int numNodes;
+        private int[] from;
+        private int[] to;
+        private int[] weight;      // null until the first weighted edge is added
+        private int numArcs;
+
+        public Builder(int nums) {
+            numNodes = nums;
+            from = new int[16];
+            to = new int[16];
+        }
+
+        /**
+         * Takes in two nodes, and adds an undirected edge between them.  It ignores bad input,
+         * just as ListGraph does.
+         */
+        public void addEdge(int fromNode, int toNode) {
+            if ((0 <= fromNode) && (fromNode < numNodes) && (0 <= toNode) && (toNode < numNodes)) {
+                addArc(fromNode, toNode, 1);
+                addArc(toNode, fromNode, 1);
+            }
+        }
+
+        /**
+         * Takes in two nodes and a weight, and adds an undirected edge of that weight between them
+         */
+        public void addEdge(int fromNode, int toNode, int edgeWeight) {
+            if ((0 <= fromNode) && (fromNode < numNodes) && (0 <= toNode) && (toNode < numNodes)) {
+                if (weight == null) {
+                    weight = new int[from.length];
+                    Arrays.fill(weight, 0, numArcs, 1);
+                }
+                addArc(fromNode, toNode, edgeWeight);
+                addArc(toNode, fromNode, edgeWeight);
+            }
+        }
+
+        /**
+         * Takes in two nodes and a weight, and adds an edge of that weight from the first node to
+         * the second only, for graphs where going one way costs more than coming back
+         */
+        public void addDirectedEdge(int fromNode, int toNode, int edgeWeight) {
+            if ((0 <= fromNode) && (fromNode < numNodes) && (0 <= toNode) && (toNode < numNodes)) {
+                if (weight == null) {
+                    weight = new int[from.length];
+                    Arrays.fill(weight, 0, numArcs, 1);
+                }
+                addArc(fromNode, toNode, edgeWeight);
+            }
+        }
+
+        private void addArc(int fromNode, int toNode, int edgeWeight) {
+            if (numArcs == from.length) {
+                from = Arrays.copyOf(from, numArcs * 2);
+                to = Arrays.copyOf(to, numArcs * 2);
+                if (weight != null) {
+                    weight = Arrays.copyOf(weight, numArcs * 2);
+                }
+            }
+            from[numArcs] = fromNode;
+            to[numArcs] = toNode;
+            if (weight != null) {
+                weight[numArcs] = edgeWeight;
+            }
+            numArcs++;
+        }
+
+        /**
+         * Builds the graph with neighbors in the order their edges were added
+         */
+        public CsrGraph build() {
+            return build(false);
+        }
+
+        /**
+         * Builds the graph.  If sortNeighbors is true, each neighbor list is sorted so that
+         * areNeighbors can use a binary search; sorting is not offered for weighted graphs.
+         */
+        public CsrGraph build(boolean sortNeighbors) {
+            int[] offsets = new int[numNodes + 1];
+            for (int i = 0; i < numArcs; i++) {
+                offsets[from[i] + 1]++;
+            }
+            for (int i = 0; i < numNodes; i++) {
+                offsets[i + 1] += offsets[i];
+            }
+            // a stable counting sort on the from node keeps each neighbor list in insertion order
+            int[] next = Arrays.copyOf(offsets, numNodes);
+            int[] targets = new int[numArcs];
+            int[] weights = (weight == null) ? null : new int[numArcs];
+            for (int i = 0; i < numArcs; i++) {
+                int e = next[from[i]]++;
+                targets[e] = to[i];
+                if (weights != null) {
+                    weights[e] = weight[i];
+                }
+            }
+            if (sortNeighbors && weights == null) {
+                for (int i = 0; i < numNodes; i++) {
+                    Arrays.sort(targets, offsets[i], offsets[i + 1]);
+                }
+            }
+            return new CsrGraph(numNodes, offsets, targets, weights, sortNeighbors && weights == null);
+        }
+    }
+
+    /**
+     * Returns the graph's size
+     */
+    public int getSize() {
+        return numNodes;
+    }
+
+    public int maxDegree() {
+        return maxDegree;
+    }
+
+    /**
+     * Returns the number of neighbors of a node
+     */
+    public int degree(int node) {
+        return offsets[node + 1] - offsets[node];
+    }
+
+    /**
+     * The neighbor cursor: a node's neighbors are edgeTarget(e) for every e with
+     * firstEdge(node) <= e < endEdge(node).  Walking them this way allocates nothing.
+     */
+    public int firstEdge(int node) {
+        return offsets[node];
+    }
+
+    public int endEdge(int node) {
+        return offsets[node + 1];
+    }
+
+    public int edgeTarget(int edge) {
+        return targets[edge];
+    }
+
+    public int edgeWeight(int edge) {
+        return (weights == null) ? 1 : weights[edge];
+    }
+
+    public boolean isWeighted() {
+        return weights != null;
+    }
+
+    /**
+     * Takes in a node number and returns a copy of its neighbors
+     */
+    public int[] getNeighbors(int node) {
+        return Arrays.copyOfRange(targets, offsets[node], offsets[node + 1]);
+    }
+
+    public int copyNeighbors(int node, int[] buf) {
+        int start = offsets[node];
+        int count = offsets[node + 1] - start;
+        System.arraycopy(targets, start, buf, 0, count);
+        return count;
+    }
+
+    /**
+     * Takes in two nodes, and checks to see if an edge exists between them.  If the graph was
+     * built with sorted neighbors this is a binary search, otherwise a scan of node1's neighbors.
+     */
+    public boolean areNeighbors(int node1, int node2) {
+        if ((0 <= node1) && (node1 < numNodes) && (0 <= node2) && (node2 < numNodes)) {
+            int start = offsets[node1];
+            int end = offsets[node1 + 1];
+            if (sorted) {
+                return Arrays.binarySearch(targets, start, end, node2) >= 0;
+            }
+            for (int e = start; e < end; e++) {
+                if (targets[e] == node2) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+
+
+    public static void main(String[] args) {
+        // A test example
+        Builder builder = new Builder(4);
+        builder.addEdge(0, 1);
+        builder.addEdge(0, 2);
+        builder.addEdge(0, 3);
+        builder.addEdge(1, 2);
+        // builder.addEdge(1, 3);
+        builder.addEdge(2, 3);
+        CsrGraph sg = builder.build(true);
+
+        int n = sg.getSize();
+        for (int i = 0; i < n; i++) {
+            System.out.println("Node " + i + ":");
+            System.out.println("is a neighbor of node 3:" + sg.areNeighbors(i, 3));
+            for (int e = sg.firstEdge(i); e < sg.endEdge(i); e++) {
+                System.out.print(sg.edgeTarget(e) + " ");
+            }
+            System.out.println();
+        }
+    }
+}
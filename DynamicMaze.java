@@ -0,0 +1,127 @@
+import java.util.*;
+import java.util.function.IntConsumer;
+
+
+/**
+ * A GridGraph whose squares can be opened and walled up after it is built, for mazes with doors
+ * that open and walls that appear.  Because a GridGraph works out neighbors from the cells when
+ * asked, changing a cell updates the graph in place; nothing is rebuilt.
+ *
+ * Every change that actually alters a square bumps the modification count, so anything computed
+ * from the maze can tell whether it is stale, and is passed to the registered cell listeners so an
+ * incremental search such as LpaStar can repair just the part of its solution that the change
+ * touches.
+ */
+class DynamicMaze extends GridGraph {
+    protected int modCount;
+    protected List<IntConsumer> cellListeners = new ArrayList<IntConsumer>();
+
+    /**
+     * Constructor takes in a grid and copies its cells, so the grid itself is never changed
+     */
+    public DynamicMaze(GridGraph grid) {
+        super(grid.cells.clone(), grid.width, grid.height);
+    }
+
+    public static DynamicMaze fromMaze(ArrayList<String> mazelist) {
+        return new DynamicMaze(GridGraph.fromMaze(mazelist));
+    }
+
+    /**
+     * Returns the number of changes made to the maze so far
+     */
+    @Override
+    public int getModCount() {
+        return modCount;
+    }
+
+    /**
+     * Takes in a listener that is called with the node number of every square that changes
+     */
+    public void addCellListener(IntConsumer listener) {
+        cellListeners.add(listener);
+    }
+
+    public void removeCellListener(IntConsumer listener) {
+        cellListeners.remove(listener);
+    }
+
+    /**
+     * Turns the square at (row, col) into a wall.  Start and goal squares cannot be walled up.
+     */
+    public void setWall(int row, int col) {
+        int node = checkedNode(row, col);
+        if (cells[node] == 'S' || cells[node] == 'G') {
+            throw new IllegalArgumentException("cannot wall up the start or goal at (" + row + ", " + col + ")");
+        }
+        setCell(node, (byte) 'X');
+    }
+
+    /**
+     * Turns the square at (row, col) into an open square.  Opening a start or goal does nothing.
+     */
+    public void setOpen(int row, int col) {
+        int node = checkedNode(row, col);
+        if (cells[node] == 'S' || cells[node] == 'G') {
+            return;
+        }
+        setCell(node, (byte) ' ');
+    }
+
+    private int checkedNode(int row, int col) {
+        int node = nodeAt(row, col);
+        if (node == -1) {
+            throw new IndexOutOfBoundsException("(" + row + ", " + col + ") is outside the " + height + "x"
+                                                + width + " maze");
+        }
+        return node;
+    }
+
+    private void setCell(int node, byte val) {
+        if (cells[node] == val) {
+            return;
+        }
+        cells[node] = val;
+        modCount++;
+        for (IntConsumer listener : cellListeners) {
+            listener.accept(node);
+        }
+    }
+
+    /**
+     * Returns the maze as a list of strings, one per row, in the form readMaze returns
+     */
+    public ArrayList<String> toMazeList() {
+        ArrayList<String> mazelist = new ArrayList<String>();
+        for (int row = 0; row < height; row++) {
+            char[] line = new char[width];
+            for (int col = 0; col < width; col++) {
+                line[col] = (char) cells[row * width + col];
+            }
+            mazelist.add(new String(line));
+        }
+        return mazelist;
+    }
+
+
+
+    public static void main(String[] args) {
+        // A test example
+        ArrayList<String> maze = new ArrayList<String>();
+        maze.add("XXXXXX");
+        maze.add("XS   X");
+        maze.add("X XX X");
+        maze.add("X   GX");
+        maze.add("XXXXXX");
+        DynamicMaze dynamic = fromMaze(maze);
+
+        MazeGraph.printPath("BFS", MazeGraph.BFS(dynamic, dynamic.startNode, dynamic.goalNode));
+        dynamic.setWall(1, 2);
+        dynamic.setWall(3, 3);
+        MazeGraph.printMaze(dynamic.toMazeList());
+        MazeGraph.printPath("BFS", MazeGraph.BFS(dynamic, dynamic.startNode, dynamic.goalNode));
+        dynamic.setOpen(1, 2);
+        MazeGraph.printPath("BFS", MazeGraph.BFS(dynamic, dynamic.startNode, dynamic.goalNode));
+        System.out.println("Changes: " + dynamic.getModCount());
+    }
+}
@@ -0,0 +1,241 @@
+import java.util.*;
+
+
+/**
+ * The breadth-first distance from every node to one goal, for routing many agents to the same
+ * goal.  The field is built with a single BFS outward from the goal, which on an undirected graph
+ * gives every node's distance to the goal.  After that, any agent's path is read by stepping from
+ * its node to a neighbor one closer to the goal, in time proportional to the path's length.
+ *
+ * Distances are kept in an int[] indexed by node, -1 for nodes that cannot reach the goal.  A field
+ * can also keep a next-hop byte per node: the position, among the node's neighbors in copyNeighbors
+ * order, of the neighbor to step to.  That costs one byte per node and saves looking at the other
+ * neighbors on every step.  A signed byte holds positions up to 127, so on a graph with a node of
+ * more than 127 neighbors no next hops are kept and every step looks through the neighbors.
+ *
+ * Once built, a field is only read, so any number of agent threads can share one.
+ *
+ * A field remembers the version of the maze it was built from (a grid's modification count; other
+ * graphs never change), so a Cache can hand the same field to every agent until the maze is
+ * edited.  Reading a path or a next hop from a field whose maze has been edited since throws an
+ * IllegalStateException.
+ */
+class FlowField {
+    public static final byte NO_HOP = -1;
+
+    protected IntGraph graph;
+    protected int goal;
+    protected int[] dist;           // dist[v] is the number of steps from v to the goal, or -1
+    protected byte[] nextHop;       // the neighbor slot to step to from each node, or null
+    protected int version;          // versionOf(graph) when the field was built
+
+    /**
+     * Constructor takes in an undirected graph and a goal node, and fills in the field with one
+     * breadth-first search.  If withNextHops is true it also records a next hop for every node,
+     * provided no node has more than 127 neighbors.
+     */
+    public FlowField(IntGraph graph, int goal, boolean withNextHops) {
+        this.graph = graph;
+        this.goal = goal;
+        this.version = versionOf(graph);
+        int n = graph.getSize();
+        dist = new int[n];
+        Arrays.fill(dist, -1);
+        if (withNextHops && graph.maxDegree() <= Byte.MAX_VALUE) {
+            nextHop = new byte[n];
+            Arrays.fill(nextHop, NO_HOP);
+        }
+        if (goal < 0 || goal >= n) {
+            return;
+        }
+
+        int[] q = new int[n];
+        int[] neighbors = new int[graph.maxDegree()];
+        int head = 0;
+        int tail = 0;
+        int[] back = new int[graph.maxDegree()];
+        dist[goal] = 0;
+        q[tail++] = goal;
+        while (head < tail) {
+            int v = q[head++];
+            int numNeighbors = graph.copyNeighbors(v, neighbors);
+            for (int i = 0; i < numNeighbors; i++) {
+                int u = neighbors[i];
+                if (dist[u] == -1) {
+                    dist[u] = dist[v] + 1;
+                    q[tail++] = u;
+                    if (nextHop != null) {
+                        //the next hop of u is v; find where v sits among u's neighbors
+                        int count = graph.copyNeighbors(u, back);
+                        for (int j = 0; j < count; j++) {
+                            if (back[j] == v) {
+                                nextHop[u] = (byte) j;
+                                break;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    public FlowField(IntGraph graph, int goal) {
+        this(graph, goal, false);
+    }
+
+    /**
+     * Returns a version number for a graph that changes whenever the graph does
+     */
+    public static int versionOf(IntGraph graph) {
+        return (graph instanceof GridGraph) ? ((GridGraph) graph).getModCount() : 0;
+    }
+
+    /**
+     * Returns true if the graph has not changed since the field was built
+     */
+    public boolean isCurrent() {
+        return version == versionOf(graph);
+    }
+
+    public int getGoal() {
+        return goal;
+    }
+
+    /**
+     * Returns the number of steps from a node to the goal, or -1 if the goal cannot be reached
+     */
+    public int distance(int node) {
+        return dist[node];
+    }
+
+    /**
+     * Returns the neighbor to step to from a node to get one step closer to the goal, or -1 at the
+     * goal and at nodes that cannot reach it.  Throws IllegalStateException if the maze has been
+     * edited since the field was built.
+     */
+    public int nextHop(int node) {
+        checkCurrent();
+        return nextHop(node, new int[graph.maxDegree()]);
+    }
+
+    private void checkCurrent() {
+        if (!isCurrent()) {
+            throw new IllegalStateException("the maze has changed since the flow field to " + goal + " was built");
+        }
+    }
+
+    //nextHop with a neighbor buffer supplied by the caller, so that walking a path allocates nothing
+    private int nextHop(int node, int[] neighbors) {
+        if (node == goal || dist[node] <= 0) {
+            return -1;
+        }
+        int count = graph.copyNeighbors(node, neighbors);
+        if (nextHop != null) {
+            return neighbors[nextHop[node]];
+        }
+        for (int i = 0; i < count; i++) {
+            if (dist[neighbors[i]] == dist[node] - 1) {
+                return neighbors[i];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns a shortest path from start to the goal in the same form as MazeGraph.BFS: from the
+     * node before the goal back to the start, empty if start is the goal, and null if there is no path.
+     * Throws IllegalStateException if the maze has been edited since the field was built.
+     */
+    public ArrayList<Integer> path(int start) {
+        checkCurrent();
+        if (start < 0 || start >= dist.length || dist[start] == -1) {
+            return null;
+        }
+        ArrayList<Integer> path = new ArrayList<Integer>(dist[start]);
+        int[] neighbors = new int[graph.maxDegree()];
+        for (int current = start; current != goal; current = nextHop(current, neighbors)) {
+            path.add(current);
+        }
+        //the walk goes from start to goal; the BFS form runs the other way
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * Keeps one field per goal and hands it out again for as long as the maze is unchanged.  Once
+     * the maze is edited the next request for a goal rebuilds its field.  The least recently used
+     * fields are dropped once there are more than maxFields of them.
+     */
+    static class Cache {
+        protected IntGraph graph;
+        protected boolean withNextHops;
+        protected int maxFields;
+        protected LinkedHashMap<Integer, FlowField> fields;
+        protected long hits;
+        protected long misses;
+
+        public Cache(IntGraph graph, int maxFields, boolean withNextHops) {
+            this.graph = graph;
+            this.maxFields = Math.max(1, maxFields);
+            this.withNextHops = withNextHops;
+            // access order, so that iteration starts at the least recently used field
+            this.fields = new LinkedHashMap<Integer, FlowField>(16, 0.75f, true);
+        }
+
+        /**
+         * Returns the field for a goal, building it if it is missing or the maze has changed
+         */
+        public synchronized FlowField get(int goal) {
+            FlowField field = fields.get(goal);
+            if (field != null && field.isCurrent()) {
+                hits++;
+                return field;
+            }
+            misses++;
+            field = new FlowField(graph, goal, withNextHops);
+            fields.put(goal, field);
+            Iterator<FlowField> oldest = fields.values().iterator();
+            while (fields.size() > maxFields) {
+                oldest.next();
+                oldest.remove();
+            }
+            return field;
+        }
+
+        public synchronized long getHits() {
+            return hits;
+        }
+
+        public synchronized long getMisses() {
+            return misses;
+        }
+    }
+
+
+
+    public static void main(String[] args) {
+        // A test example
+        DynamicMaze maze = DynamicMaze.fromMaze(MazeGraph.readMaze(args.length > 0 ? args[0] : "maze1.txt"));
+        Cache cache = new Cache(maze, 4, true);
+        FlowField field = cache.get(maze.goalNode);
+        MazeGraph.printPath("Flow field", field.path(maze.startNode));
+        MazeGraph.printPath("BFS", MazeGraph.BFS(maze, maze.startNode, maze.goalNode));
+
+        //every open square is an agent heading for the same goal
+        int agents = 0;
+        long steps = 0;
+        for (int v = 0; v < maze.getSize(); v++) {
+            if (maze.isOpen(v) && cache.get(maze.goalNode).distance(v) > 0) {
+                agents++;
+                steps += cache.get(maze.goalNode).path(v).size();
+            }
+        }
+        System.out.println(agents + " agents, " + steps + " steps in all, " + cache.getMisses() + " field built");
+
+        //walling up a square on the path makes the next request rebuild the field
+        int blocked = field.path(maze.startNode).get(0);
+        maze.setWall(maze.rowOf(blocked), maze.colOf(blocked));
+        MazeGraph.printPath("Flow field after edit", cache.get(maze.goalNode).path(maze.startNode));
+        System.out.println("Fields built: " + cache.getMisses() + ", reused: " + cache.getHits());
+    }
+}
@@ -0,0 +1,213 @@
+import java.util.*;
+
+
+/**
+ * A graph view of a maze that is backed directly by the maze's cells.  Every square of the grid
+ * is a node, numbered row * width + col, and the neighbors of an open square are the open squares
+ * immediately above, below, to the left and to the right of it.  Neighbors are computed when asked
+ * for, so no adjacency lists are ever built.  Wall squares are nodes with no neighbors.
+ */
+class GridGraph implements IntGraph {
+    protected byte[] cells;    // one upper-case maze character per square, row by row
+    protected int width;       // the number of columns in the maze
+    protected int height;      // the number of rows in the maze
+    public int startNode;      // node number of the last S square, or -1 if there is none
+    public int goalNode;       // node number of the last G square, or -1 if there is none
+    public int[] startNodes;   // every S square, in reading order
+    public int[] goalNodes;    // every G square, in reading order
+
+    /**
+     * Constructor takes in the maze characters, stored row by row, and the maze's dimensions.
+     * It finds every start and goal square; like collectOpenSquares, startNode and goalNode are
+     * the last S and G.
+     */
+    public GridGraph(byte[] cells, int width, int height) {
+        this.cells = cells;
+        this.width = width;
+        this.height = height;
+        int starts = 0;
+        int goals = 0;
+        for (int i = 0; i < width * height; i++) {
+            if (cells[i] == 'S') {
+                starts++;
+            } else if (cells[i] == 'G') {
+                goals++;
+            }
+        }
+        startNodes = new int[starts];
+        goalNodes = new int[goals];
+        starts = 0;
+        goals = 0;
+        for (int i = 0; i < width * height; i++) {
+            if (cells[i] == 'S') {
+                startNodes[starts++] = i;
+            } else if (cells[i] == 'G') {
+                goalNodes[goals++] = i;
+            }
+        }
+        startNode = (starts > 0) ? startNodes[starts - 1] : -1;
+        goalNode = (goals > 0) ? goalNodes[goals - 1] : -1;
+    }
+
+    /**
+     * Takes in the maze represented as a list of strings (one string per row), as returned by
+     * readMaze, and builds the grid.  Short rows are padded with walls.
+     */
+    public static GridGraph fromMaze(ArrayList<String> mazelist) {
+        int width = 0;
+        for (String row : mazelist) {
+            width = Math.max(width, row.length());
+        }
+        int height = mazelist.size();
+        byte[] cells = new byte[width * height];
+        Arrays.fill(cells, (byte) 'X');
+        for (int row = 0; row < height; row++) {
+            String rowString = mazelist.get(row);
+            for (int col = 0; col < rowString.length(); col++) {
+                char val = Character.toUpperCase(rowString.charAt(col));
+                // anything outside ASCII is a wall; narrowing it could alias it to a space, S or G
+                cells[row * width + col] = (val < 128) ? (byte) val : (byte) 'X';
+            }
+        }
+        return new GridGraph(cells, width, height);
+    }
+
+    /**
+     * Returns true if the maze character is one that can be walked on: a space, S, G or a terrain
+     * digit 1-9.  The searches on a GridGraph count steps, so they treat digits as plain open squares.
+     */
+    public static boolean isOpenCell(byte val) {
+        return val == ' ' || val == 'S' || val == 'G' || (val >= '1' && val <= '9');
+    }
+
+    /**
+     * isOpenCell for a character of a maze row.  Only ASCII characters can be open; the check comes
+     * before narrowing to a byte, since narrowing would turn U+0120 into a space, for instance.
+     */
+    public static boolean isOpenCell(char val) {
+        return val < 128 && isOpenCell((byte) val);
+    }
+
+    /**
+     * Returns the cost of stepping onto an open square: the digit's value, or 1 for anything else
+     */
+    public static int cellCost(byte val) {
+        return (val >= '1' && val <= '9') ? val - '0' : 1;
+    }
+
+    /**
+     * Returns the graph's size, which is the number of squares in the grid
+     */
+    public int getSize() {
+        return width * height;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Returns the number of changes made to the grid so far.  A plain GridGraph never changes, so
+     * this is always 0; DynamicMaze counts its edits.  Anything computed from a grid can keep the
+     * count it was computed at to tell whether it is stale.
+     */
+    public int getModCount() {
+        return 0;
+    }
+
+    public int rowOf(int node) {
+        return node / width;
+    }
+
+    public int colOf(int node) {
+        return node % width;
+    }
+
+    /**
+     * Returns the node number of the square at (row, col), or -1 if it lies outside the grid
+     */
+    public int nodeAt(int row, int col) {
+        if ((0 <= row) && (row < height) && (0 <= col) && (col < width)) {
+            return row * width + col;
+        }
+        return -1;
+    }
+
+    /**
+     * Takes in a node number and checks to see if that square is open
+     */
+    public boolean isOpen(int node) {
+        return (0 <= node) && (node < cells.length) && isOpenCell(cells[node]);
+    }
+
+    public int maxDegree() {
+        return 4;
+    }
+
+    /**
+     * Copies the open squares above, below, left and right of the node, in that order
+     */
+    public int copyNeighbors(int node, int[] buf) {
+        if (!isOpen(node)) {
+            return 0;
+        }
+        int row = node / width;
+        int col = node - row * width;
+        int count = 0;
+        if (row > 0 && isOpenCell(cells[node - width])) {
+            buf[count++] = node - width;
+        }
+        if (row < height - 1 && isOpenCell(cells[node + width])) {
+            buf[count++] = node + width;
+        }
+        if (col > 0 && isOpenCell(cells[node - 1])) {
+            buf[count++] = node - 1;
+        }
+        if (col < width - 1 && isOpenCell(cells[node + 1])) {
+            buf[count++] = node + 1;
+        }
+        return count;
+    }
+
+    /**
+     * Takes in two nodes, and checks to see if an edge exists between them
+     */
+    public boolean areNeighbors(int node1, int node2) {
+        if (!isOpen(node1) || !isOpen(node2)) {
+            return false;
+        }
+        int diff = Math.abs(node1 - node2);
+        return diff == width || (diff == 1 && node1 / width == node2 / width);
+    }
+
+
+
+    public static void main(String[] args) {
+        // A test example
+        ArrayList<String> maze = new ArrayList<String>();
+        maze.add("XXXXX");
+        maze.add("XS  X");
+        maze.add("XX XX");
+        maze.add("X  GX");
+        maze.add("XXXXX");
+        GridGraph grid = fromMaze(maze);
+
+        System.out.println("Start at " + grid.startNode + ", goal at " + grid.goalNode);
+        int[] neighbors = new int[grid.maxDegree()];
+        for (int i = 0; i < grid.getSize(); i++) {
+            if (grid.isOpen(i)) {
+                int count = grid.copyNeighbors(i, neighbors);
+                System.out.print("Node " + i + " (" + grid.rowOf(i) + ", " + grid.colOf(i) + "):");
+                for (int j = 0; j < count; j++) {
+                    System.out.print(" " + neighbors[j]);
+                }
+                System.out.println();
+            }
+        }
+        MazeGraph.printPath("BFS", MazeGraph.BFS(grid, grid.startNode, grid.goalNode));
+    }
+}
@@ -0,0 +1,178 @@
+import java.util.*;
+
+
+/**
+ * A binary min-heap of int node numbers, each with a long key.  Every node in 0 .. capacity-1 can
+ * be in the heap at most once, and the heap remembers where each node sits, so a node's key can be
+ * changed, or the node taken out, in O(log n) without searching for it.  No objects are allocated
+ * after construction.
+ */
+class IndexedIntHeap {
+    protected int[] heap;      // the nodes, in heap order
+    protected int[] pos;       // pos[node] is the node's index in heap, or -1 if it is not in the heap
+    protected long[] key;      // key[node] is the node's current key
+    protected int size;        // the number of nodes in the heap
+
+    /**
+     * Constructor takes in the number of nodes that may be put in the heap
+     */
+    public IndexedIntHeap(int capacity) {
+        heap = new int[capacity];
+        pos = new int[capacity];
+        key = new long[capacity];
+        Arrays.fill(pos, -1);
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Takes in a node number and checks to see if it is in the heap
+     */
+    public boolean contains(int node) {
+        return pos[node] != -1;
+    }
+
+    /**
+     * Returns the key a node was last given
+     */
+    public long getKey(int node) {
+        return key[node];
+    }
+
+    /**
+     * Adds a node that is not in the heap yet
+     */
+    public void insert(int node, long nodeKey) {
+        key[node] = nodeKey;
+        heap[size] = node;
+        pos[node] = size;
+        siftUp(size++);
+    }
+
+    /**
+     * Lowers the key of a node that is already in the heap.  A key that is not lower is ignored.
+     */
+    public void decreaseKey(int node, long nodeKey) {
+        if (nodeKey < key[node]) {
+            key[node] = nodeKey;
+            siftUp(pos[node]);
+        }
+    }
+
+    /**
+     * Changes the key of a node that is already in the heap, whether the new key is lower or higher
+     */
+    public void update(int node, long nodeKey) {
+        long oldKey = key[node];
+        key[node] = nodeKey;
+        if (nodeKey < oldKey) {
+            siftUp(pos[node]);
+        } else {
+            siftDown(pos[node]);
+        }
+    }
+
+    /**
+     * Takes out a node that is in the heap, wherever it sits
+     */
+    public void remove(int node) {
+        int i = pos[node];
+        pos[node] = -1;
+        size--;
+        if (i < size) {
+            int last = heap[size];
+            heap[i] = last;
+            pos[last] = i;
+            siftDown(i);
+            siftUp(pos[last]);
+        }
+    }
+
+    /**
+     * Returns the node with the smallest key without removing it
+     */
+    public int peekMin() {
+        return heap[0];
+    }
+
+    /**
+     * Removes and returns the node with the smallest key
+     */
+    public int pollMin() {
+        int min = heap[0];
+        pos[min] = -1;
+        size--;
+        if (size > 0) {
+            heap[0] = heap[size];
+            pos[heap[0]] = 0;
+            siftDown(0);
+        }
+        return min;
+    }
+
+    private void siftUp(int i) {
+        int node = heap[i];
+        long nodeKey = key[node];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            int parentNode = heap[parent];
+            if (key[parentNode] <= nodeKey) {
+                break;
+            }
+            heap[i] = parentNode;
+            pos[parentNode] = i;
+            i = parent;
+        }
+        heap[i] = node;
+        pos[node] = i;
+    }
+
+    private void siftDown(int i) {
+        int node = heap[i];
+        long nodeKey = key[node];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && key[heap[child + 1]] < key[heap[child]]) {
+                child++;
+            }
+            int childNode = heap[child];
+            if (nodeKey <= key[childNode]) {
+                break;
+            }
+            heap[i] = childNode;
+            pos[childNode] = i;
+            i = child;
+        }
+        heap[i] = node;
+        pos[node] = i;
+    }
+
+
+
+    public static void main(String[] args) {
+        // A test example
+        IndexedIntHeap h = new IndexedIntHeap(5);
+        h.insert(0, 50);
+        h.insert(1, 10);
+        h.insert(2, 40);
+        h.insert(3, 30);
+        h.insert(4, 20);
+        h.decreaseKey(2, 5);
+        h.update(1, 60);
+        h.remove(3);
+        while (!h.isEmpty()) {
+            int node = h.pollMin();
+            System.out.print(node + ":" + h.getKey(node) + " ");
+        }
+        System.out.println();
+    }
+}
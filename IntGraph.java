@@ -0,0 +1,24 @@
+/**
+ * A graph whose nodes are numbered 0 .. getSize()-1 and whose neighbors can be copied into a
+ * caller-supplied array.  The searches in MazeGraph are written against this interface, so they
+ * can walk any graph representation without allocating a list per node.
+ */
+interface IntGraph {
+
+    /**
+     * Returns the graph's size
+     */
+    int getSize();
+
+    /**
+     * Returns the largest number of neighbors any node has.  An array of this length is always
+     * big enough to pass to copyNeighbors.
+     */
+    int maxDegree();
+
+    /**
+     * Takes in a node number and an array, copies the node's neighbors to the front of the array
+     * and returns how many neighbors were copied.
+     */
+    int copyNeighbors(int node, int[] buf);
+}
@@ -0,0 +1,220 @@
+import java.util.*;
+
+
+/**
+ * Jump Point Search on a 4-connected GridGraph.  It is A* with the Manhattan heuristic, except that
+ * instead of putting every neighbor of a square on the open list, it runs in a straight line from
+ * the square until it reaches a jump point: the goal, a square where a wall forces a turn, or (when
+ * running vertically) a square from which a horizontal run reaches a jump point.  All the squares in
+ * between are skipped, so in open rooms only a handful of squares are ever put on the open list.
+ * The jump points are expanded back into the full square-by-square path at the end.
+ */
+class JumpPointSearch {
+    protected GridGraph grid;
+    protected int width;
+    protected int height;
+    protected int goal;
+
+    protected JumpPointSearch(GridGraph grid, int goal) {
+        this.grid = grid;
+        this.width = grid.getWidth();
+        this.height = grid.getHeight();
+        this.goal = goal;
+    }
+
+    /**
+     * Searches the grid from its start square to its goal square
+     */
+    public static MazeGraph.SearchResult search(GridGraph grid) {
+        return search(grid, grid.startNode, grid.goalNode);
+    }
+
+    /**
+     * Takes in a grid and the node numbers of the start and goal squares, and returns a shortest
+     * path in the same form as MazeGraph.BFS, using grid node numbers.  The expanded count is the
+     * number of jump points taken off the open list.
+     */
+    public static MazeGraph.SearchResult search(GridGraph grid, int start, int goal) {
+        return new JumpPointSearch(grid, goal).run(start);
+    }
+
+    private MazeGraph.SearchResult run(int start) {
+        int n = grid.getSize();
+        int[] g = new int[n];
+        Arrays.fill(g, Integer.MAX_VALUE);
+        int[] parent = new int[n];
+        BitSet closed = new BitSet(n);
+        IndexedIntHeap open = new IndexedIntHeap(n);
+        // the directions to try from a jump point: up, down, left, right as (row, col) steps
+        int[] dr = new int[4];
+        int[] dc = new int[4];
+
+        g[start] = 0;
+        parent[start] = -1;
+        open.insert(start, key(0, manhattan(start)));
+
+        int expanded = 0;
+        boolean found = false;
+        while (!open.isEmpty()) {
+            int v = open.pollMin();
+            if (v == goal) {
+                found = true;
+                break;
+            }
+            closed.set(v);
+            expanded++;
+
+            int numDirs = prunedDirections(v, parent[v], dr, dc);
+            for (int i = 0; i < numDirs; i++) {
+                int jp = jump(v, dr[i], dc[i]);
+                if (jp == -1 || closed.get(jp)) {
+                    continue;
+                }
+                int newG = g[v] + distance(v, jp);
+                if (newG >= g[jp]) {
+                    continue;
+                }
+                g[jp] = newG;
+                parent[jp] = v;
+                long jpKey = key(newG, manhattan(jp));
+                if (open.contains(jp)) {
+                    open.decreaseKey(jp, jpKey);
+                } else {
+                    open.insert(jp, jpKey);
+                }
+            }
+        }
+        if (!found) {
+            return new MazeGraph.SearchResult(null, expanded);
+        }
+        return new MazeGraph.SearchResult(expandPath(parent, start), expanded);
+    }
+
+    /*
+     * Fills in the directions worth searching from a jump point, given the jump point it was reached
+     * from. Moving horizontally, the search goes on ahead and may turn up or down; moving vertically,
+     * it goes on ahead and may turn left or right. Going back is never useful. The start tries all four.
+     */
+    private int prunedDirections(int node, int from, int[] dr, int[] dc) {
+        int row = node / width;
+        int col = node % width;
+        int count = 0;
+        if (from == -1) {
+            int[][] all = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+            for (int[] dir : all) {
+                if (isOpen(row + dir[0], col + dir[1])) {
+                    dr[count] = dir[0];
+                    dc[count++] = dir[1];
+                }
+            }
+            return count;
+        }
+        int stepRow = Integer.signum(row - from / width);
+        int stepCol = Integer.signum(col - from % width);
+        if (stepCol != 0) {
+            count = addIfOpen(row, col, -1, 0, dr, dc, count);
+            count = addIfOpen(row, col, 1, 0, dr, dc, count);
+            count = addIfOpen(row, col, 0, stepCol, dr, dc, count);
+        } else {
+            count = addIfOpen(row, col, 0, -1, dr, dc, count);
+            count = addIfOpen(row, col, 0, 1, dr, dc, count);
+            count = addIfOpen(row, col, stepRow, 0, dr, dc, count);
+        }
+        return count;
+    }
+
+    private int addIfOpen(int row, int col, int stepRow, int stepCol, int[] dr, int[] dc, int count) {
+        if (isOpen(row + stepRow, col + stepCol)) {
+            dr[count] = stepRow;
+            dc[count++] = stepCol;
+        }
+        return count;
+    }
+
+    /*
+     * Runs from node in the direction (stepRow, stepCol) and returns the first jump point, or -1 if the
+     * run hits a wall first.
+     */
+    private int jump(int node, int stepRow, int stepCol) {
+        if (stepCol != 0) {
+            return jumpHorizontal(node / width, node % width, stepCol);
+        }
+        int row = node / width;
+        int col = node % width;
+        while (true) {
+            row += stepRow;
+            if (!isOpen(row, col)) {
+                return -1;
+            }
+            int id = row * width + col;
+            if (id == goal) {
+                return id;
+            }
+            // a forced neighbor: a side opens up right where the square behind had a wall
+            if ((isOpen(row, col - 1) && !isOpen(row - stepRow, col - 1))
+                    || (isOpen(row, col + 1) && !isOpen(row - stepRow, col + 1))) {
+                return id;
+            }
+            // running vertically, a square is also a jump point if a horizontal run from it finds one
+            if (jumpHorizontal(row, col, -1) != -1 || jumpHorizontal(row, col, 1) != -1) {
+                return id;
+            }
+        }
+    }
+
+    private int jumpHorizontal(int row, int col, int stepCol) {
+        while (true) {
+            col += stepCol;
+            if (!isOpen(row, col)) {
+                return -1;
+            }
+            int id = row * width + col;
+            if (id == goal) {
+                return id;
+            }
+            if ((isOpen(row - 1, col) && !isOpen(row - 1, col - stepCol))
+                    || (isOpen(row + 1, col) && !isOpen(row + 1, col - stepCol))) {
+                return id;
+            }
+        }
+    }
+
+    /*
+     * Walks back from the goal through the jump points, filling in every square on the straight runs
+     * between them. Like findPath, the result runs from the square before the goal back to the start.
+     */
+    private ArrayList<Integer> expandPath(int[] parent, int start) {
+        ArrayList<Integer> path = new ArrayList<Integer>();
+        int current = goal;
+        while (current != start) {
+            int from = parent[current];
+            int step = (from / width == current / width) ? Integer.signum(from - current)
+                                                         : Integer.signum(from - current) * width;
+            for (int cell = current + step; cell != from; cell += step) {
+                path.add(cell);
+            }
+            path.add(from);
+            current = from;
+        }
+        return path;
+    }
+
+    private boolean isOpen(int row, int col) {
+        return (0 <= row) && (row < height) && (0 <= col) && (col < width)
+                && GridGraph.isOpenCell(grid.cells[row * width + col]);
+    }
+
+    //Straight-line distance between two squares on the same row or column
+    private int distance(int a, int b) {
+        return Math.abs(a / width - b / width) + Math.abs(a % width - b % width);
+    }
+
+    private int manhattan(int node) {
+        return distance(node, goal);
+    }
+
+    //Heap key ordering squares by f = g + h, and among equal f by larger g, as MazeGraph.aStar does
+    private static long key(int g, int h) {
+        return ((long) (g + h) << 32) | (0xFFFFFFFFL - g);
+    }
+}
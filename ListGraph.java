@@ -5,7 +5,7 @@ import java.util.*;
  * A simple implementation of a graph using an adjacency list.  This is an undirected, unweighted
  * graph, with no information associated with nodes in the graph.
  */
-class ListGraph {
+class ListGraph implements IntGraph {
     protected List<List> adjList;  // the adjacency matrix
     protected int numNodes;    // the number of nodes in the graph
 
@@ -49,6 +49,29 @@ class ListGraph {
         return adjList.get(node);
     }
 
+    /**
+     * Returns the length of the longest neighbor list
+     */
+    public int maxDegree() {
+        int max = 0;
+        for (int i = 0; i < numNodes; i++) {
+            max = Math.max(max, adjList.get(i).size());
+        }
+        return max;
+    }
+
+    /**
+     * Copies the node's neighbor list, in order, into buf and returns its length
+     */
+    public int copyNeighbors(int node, int[] buf) {
+        List neighs = adjList.get(node);
+        int count = neighs.size();
+        for (int i = 0; i < count; i++) {
+            buf[i] = (Integer) neighs.get(i);
+        }
+        return count;
+    }
+
 
     /**
      * Takes in two nodes, and checks to see if an edge exists between them
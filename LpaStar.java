@@ -0,0 +1,202 @@
+import java.util.*;
+import java.util.function.IntConsumer;
+
+
+/**
+ * Lifelong Planning A* (Koenig and Likhachev) on a DynamicMaze.  The first search is an ordinary
+ * A* from the start to the goal, but the planner keeps its distances afterwards.  When a square is
+ * opened or walled up, the maze tells the planner, which marks just that square and its four
+ * neighbors as possibly out of date; the next search then re-expands only the squares whose
+ * distance really changed, instead of searching the whole maze again.
+ *
+ * Each square v has g[v], the distance found so far, and rhs[v], one more than the smallest g of
+ * its open neighbors.  A square whose g and rhs differ is "inconsistent" and waits in the heap,
+ * keyed on min(g, rhs) plus the Manhattan distance to the goal.  search() expands inconsistent
+ * squares in key order until the goal is consistent and nothing in the heap could still improve it.
+ */
+class LpaStar {
+    protected static final int INFINITY = Integer.MAX_VALUE / 2;
+
+    protected DynamicMaze maze;
+    protected int start;
+    protected int goal;
+    protected int[] g;
+    protected int[] rhs;
+    protected IndexedIntHeap open;
+    protected int[] neighbors = new int[4];
+    protected int[] changed = new int[4];
+    protected int expanded;       // squares expanded by the last search
+    protected IntConsumer listener = this::cellChanged;
+
+    /**
+     * Constructor takes in a maze and registers with it, so later changes to the maze are
+     * picked up by the next search
+     */
+    public LpaStar(DynamicMaze maze) {
+        this.maze = maze;
+        this.start = maze.startNode;
+        this.goal = maze.goalNode;
+        int n = maze.getSize();
+        g = new int[n];
+        rhs = new int[n];
+        Arrays.fill(g, INFINITY);
+        Arrays.fill(rhs, INFINITY);
+        open = new IndexedIntHeap(n);
+        if (start != -1 && goal != -1) {
+            rhs[start] = 0;
+            open.insert(start, key(start));
+            maze.addCellListener(listener);
+        }
+    }
+
+    /**
+     * Stops listening to the maze; the planner cannot be searched again after this
+     */
+    public void close() {
+        maze.removeCellListener(listener);
+    }
+
+    /**
+     * Takes in a square that was opened or walled up and queues it and its neighbors for repair
+     */
+    protected void cellChanged(int node) {
+        updateSquare(node);
+        int row = maze.rowOf(node);
+        int col = maze.colOf(node);
+        int count = 0;
+        if (row > 0) {
+            changed[count++] = node - maze.width;
+        }
+        if (row < maze.height - 1) {
+            changed[count++] = node + maze.width;
+        }
+        if (col > 0) {
+            changed[count++] = node - 1;
+        }
+        if (col < maze.width - 1) {
+            changed[count++] = node + 1;
+        }
+        for (int i = 0; i < count; i++) {
+            updateSquare(changed[i]);
+        }
+    }
+
+    /**
+     * Recomputes rhs for a square from its open neighbors, and puts it in the heap if it is
+     * inconsistent or takes it out if it is not
+     */
+    protected void updateSquare(int node) {
+        if (node != start) {
+            int best = INFINITY;
+            //a wall has no neighbors, so its rhs is always infinite
+            int count = maze.copyNeighbors(node, neighbors);
+            for (int i = 0; i < count; i++) {
+                best = Math.min(best, g[neighbors[i]] + 1);
+            }
+            rhs[node] = Math.min(best, INFINITY);
+        }
+        if (g[node] != rhs[node]) {
+            if (open.contains(node)) {
+                open.update(node, key(node));
+            } else {
+                open.insert(node, key(node));
+            }
+        } else if (open.contains(node)) {
+            open.remove(node);
+        }
+    }
+
+    private long key(int node) {
+        int best = Math.min(g[node], rhs[node]);
+        int h = Math.abs(maze.rowOf(node) - maze.rowOf(goal)) + Math.abs(maze.colOf(node) - maze.colOf(goal));
+        return ((long) (best + h) << 32) | best;
+    }
+
+    /**
+     * Brings the distances up to date with the maze and returns the shortest path from start to
+     * goal, in the form findPath returns, with the number of squares this search expanded
+     */
+    public MazeGraph.SearchResult search() {
+        expanded = 0;
+        if (start == -1 || goal == -1) {
+            return new MazeGraph.SearchResult(null, 0);
+        }
+        while (!open.isEmpty() && (open.getKey(open.peekMin()) < key(goal) || rhs[goal] != g[goal])) {
+            int u = open.pollMin();
+            expanded++;
+            int count;
+            if (g[u] > rhs[u]) {
+                //u got shorter; its neighbors may get shorter too
+                g[u] = rhs[u];
+                count = maze.copyNeighbors(u, neighbors);
+            } else {
+                //u got longer, or was walled up; redo it and everything that may have relied on it
+                g[u] = INFINITY;
+                updateSquare(u);
+                count = maze.copyNeighbors(u, neighbors);
+            }
+            //copy first: updateSquare reuses the neighbors buffer
+            int[] successors = changed;
+            System.arraycopy(neighbors, 0, successors, 0, count);
+            for (int i = 0; i < count; i++) {
+                updateSquare(successors[i]);
+            }
+        }
+        return new MazeGraph.SearchResult(path(), expanded);
+    }
+
+    /**
+     * Walks back from the goal to the start, always stepping to the neighbor closest to the start
+     */
+    protected ArrayList<Integer> path() {
+        if (g[goal] >= INFINITY) {
+            return null;
+        }
+        ArrayList<Integer> path = new ArrayList<Integer>();
+        int current = goal;
+        while (current != start) {
+            int count = maze.copyNeighbors(current, neighbors);
+            int next = neighbors[0];
+            for (int i = 1; i < count; i++) {
+                if (g[neighbors[i]] < g[next]) {
+                    next = neighbors[i];
+                }
+            }
+            path.add(next);
+            current = next;
+        }
+        return path;
+    }
+
+    /**
+     * Returns the number of squares expanded by the last search
+     */
+    public int getExpanded() {
+        return expanded;
+    }
+
+
+
+    public static void main(String[] args) {
+        // A test example
+        DynamicMaze maze = DynamicMaze.fromMaze(MazeGraph.readMaze(args.length > 0 ? args[0] : "maze3.txt"));
+        LpaStar planner = new LpaStar(maze);
+        MazeGraph.SearchResult first = planner.search();
+        MazeGraph.printPath("LPA*", first.path);
+        System.out.println("Expanded " + first.expanded + " squares");
+
+        //wall up a square in the middle of the path, then open it again
+        int blocked = first.path.get(first.path.size() / 2);
+        int row = maze.rowOf(blocked);
+        int col = maze.colOf(blocked);
+        maze.setWall(row, col);
+        MazeGraph.SearchResult replanned = planner.search();
+        MazeGraph.printPath("LPA* after walling (" + row + ", " + col + ")", replanned.path);
+        MazeGraph.printPath("BFS", MazeGraph.BFS(maze, maze.startNode, maze.goalNode));
+        System.out.println("Expanded " + replanned.expanded + " squares");
+        maze.setOpen(row, col);
+        MazeGraph.SearchResult reopened = planner.search();
+        System.out.println("After reopening: path " + reopened.path.size() + " long, expanded "
+                           + reopened.expanded + " squares");
+    }
+}
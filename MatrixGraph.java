@@ -6,18 +6,37 @@ import java.util.*;
  * graph, with no information associated with nodes in the graph.
  */
 
-class MatrixGraph {
-    protected int[][] matrix;  // the adjacency matrix
+class MatrixGraph implements IntGraph {
+    protected long[] matrix;   // the adjacency matrix, one bit per entry, row by row
+    protected int wordsPerRow; // the number of 64-bit words holding one row of the matrix
+    protected int[] degree;    // the number of neighbors of each node
     protected int numNodes;    // the number of nodes in the graph
 
     /**
-     * Constructor takes in the number of nodes, and initializes the adjacency matrix
+     * Constructor takes in the number of nodes, and initializes the adjacency matrix.  Throws
+     * IllegalArgumentException if the matrix is too big for one array.
      */
     public MatrixGraph(int nums) {
         numNodes = nums;
-        matrix = new int[numNodes][];
-        for (int i = 0; i < numNodes; i++) {
-            matrix[i] = new int[numNodes];
+        wordsPerRow = (numNodes + 63) >>> 6;
+        long words = (long) numNodes * wordsPerRow;
+        if (words > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("an adjacency matrix for " + numNodes + " nodes needs "
+                                               + words + " words, more than an array can hold");
+        }
+        matrix = new long[(int) words];
+        degree = new int[numNodes];
+    }
+
+    /**
+     * Sets the matrix entry for (fromNode, toNode), keeping the degree count up to date
+     */
+    private void setBit(int fromNode, int toNode) {
+        int word = fromNode * wordsPerRow + (toNode >>> 6);
+        long mask = 1L << toNode;
+        if ((matrix[word] & mask) == 0) {
+            matrix[word] |= mask;
+            degree[fromNode]++;
         }
     }
 
@@ -27,8 +46,8 @@ class MatrixGraph {
      */
     public void addEdge(int fromNode, int toNode) {
         if ((0 <= fromNode) && (fromNode < numNodes) && (0 <= toNode) && (toNode < numNodes)) {
-            matrix[fromNode][toNode] = 1;
-            matrix[toNode][fromNode] = 1;
+            setBit(fromNode, toNode);
+            setBit(toNode, fromNode);
         }
     }
 
@@ -41,24 +60,68 @@ class MatrixGraph {
     }
 
     /**
-     *
+     * Takes in a node number and returns an array of length getSize() holding its neighbors,
+     * followed by -1 in every unused position.  nextNeighbor and copyNeighbors do the same job
+     * without allocating.
      */
     public int[] getNeighbors(int node) {
         int[] neighs = new int[numNodes];
+        Arrays.fill(neighs, -1);
+        if ((0 <= node) && (node < numNodes)) {
+            copyNeighbors(node, neighs);
+        }
+        return neighs;
+    }
 
+    /**
+     * The neighbor cursor: returns the smallest neighbor of node that is at least fromNode, or -1
+     * if there is none.  Whole words of zeros are skipped, so walking a row costs one step per
+     * neighbor plus one per 64 columns:
+     *     for (int u = g.nextNeighbor(v, 0); u != -1; u = g.nextNeighbor(v, u + 1))
+     */
+    public int nextNeighbor(int node, int fromNode) {
+        if (fromNode >= numNodes) {
+            return -1;
+        }
+        int rowStart = node * wordsPerRow;
+        int w = fromNode >>> 6;
+        long word = matrix[rowStart + w] & (-1L << fromNode);
+        while (true) {
+            if (word != 0) {
+                return (w << 6) + Long.numberOfTrailingZeros(word);
+            }
+            if (++w == wordsPerRow) {
+                return -1;
+            }
+            word = matrix[rowStart + w];
+        }
+    }
+
+    /**
+     * Returns the largest number of neighbors any node has
+     */
+    public int maxDegree() {
+        int max = 0;
         for (int i = 0; i < numNodes; i++) {
-            neighs[i] = -1;
+            max = Math.max(max, degree[i]);
         }
+        return max;
+    }
 
-        int neighCount = 0;
-        if ((0 <= node) && (node < numNodes)) {
-            for (int i = 0; i < numNodes; i++) {
-                if (matrix[node][i] == 1) {
-                    neighs[neighCount++] = i;
-                }
+    /**
+     * Copies the node's neighbors, in increasing order, into buf and returns how many there are
+     */
+    public int copyNeighbors(int node, int[] buf) {
+        int count = 0;
+        int rowStart = node * wordsPerRow;
+        for (int w = 0; w < wordsPerRow; w++) {
+            long word = matrix[rowStart + w];
+            while (word != 0) {
+                buf[count++] = (w << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
             }
         }
-        return neighs;
+        return count;
     }
 
     /**
@@ -66,7 +129,7 @@ class MatrixGraph {
      */
     public boolean areNeighbors(int node1, int node2) {
         if ((0 <= node1) && (node1 < numNodes) && (0 <= node2) && (node2 < numNodes)) {
-            return (matrix[node1][node2] == 1);
+            return (matrix[node1 * wordsPerRow + (node2 >>> 6)] & (1L << node2)) != 0;
         }
         return false;
     }
@@ -0,0 +1,340 @@
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+
+/**
+ * A small benchmark harness for the maze code.  It generates mazes with MazeGenerator for every
+ * combination of size and density, and for each operation reports the median time per call and the bytes the
+ * calling thread allocated per call (from the JVM's per-thread allocation counter).  Every
+ * measurement is repeated, and the first rounds are thrown away to let the JIT warm up.
+ *
+ * Usage: java MazeBenchmark [algorithm=open] [sizes=51,101,201,401] [densities=0.25] [section ...]
+ * where the sections are parse, graphs, search, render, open and parallel (all of them by default).
+ * The search section also times the searches on maze3.txt, when it is in the working directory,
+ * and with the default sizes on a 1001 x 1001 maze, about a million squares.
+ *
+ * For numbers to compare between changes, the JMH benchmarks in jmh/ measure the parsing, graph
+ * and search operations with forked JVMs (see jmh/pom.xml).
+ */
+class MazeBenchmark {
+    // the search section also runs on a maze of about a million squares, unless sizes are given
+    private static final int LARGE_SIZE = 1001;
+    private static final int WARMUP = 5;
+    private static final int ROUNDS = 15;
+
+    // the result of every timed call is folded in here, so that the JIT can't drop the work
+    private static long sink;
+
+    /**
+     * Builds a size x size maze with MazeGenerator, always from the same seed
+     */
+    public static ArrayList<String> generate(String algorithm, int size, double density) {
+        return MazeGenerator.generate(algorithm, size, size, 221, density).toMazeList();
+    }
+
+    /**
+     * The median time and the average allocation of one call to a task
+     */
+    static class Measurement {
+        long nanos;
+        long bytes;      // -1 if the JVM cannot count allocations
+    }
+
+    /**
+     * Runs the task WARMUP + ROUNDS times and measures the last ROUNDS runs
+     */
+    public static Measurement measure(Runnable task) {
+        long[] times = new long[ROUNDS];
+        long allocated = 0;
+        for (int i = 0; i < WARMUP + ROUNDS; i++) {
+            long bytesBefore = allocatedBytes();
+            long start = System.nanoTime();
+            task.run();
+            long elapsed = System.nanoTime() - start;
+            long bytesAfter = allocatedBytes();
+            if (i >= WARMUP) {
+                times[i - WARMUP] = elapsed;
+                allocated += bytesAfter - bytesBefore;
+            }
+        }
+        Arrays.sort(times);
+        Measurement m = new Measurement();
+        m.nanos = times[ROUNDS / 2];
+        m.bytes = (allocatedBytes() < 0) ? -1 : allocated / ROUNDS;
+        return m;
+    }
+
+    //Bytes allocated so far by this thread, or -1 if the JVM does not keep count
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    private static void run(String name, int size, double density, Runnable task) {
+        run(name, size, size, density, task);
+    }
+
+    private static void run(String name, int rows, int cols, double density, Runnable task) {
+        Measurement m = measure(task);
+        String bytes = (m.bytes < 0) ? "n/a" : String.format("%.1f", m.bytes / 1024.0);
+        System.out.printf("%-28s %6d x %-6d %5.2f %12.3f ms/op %12s KB/op%n", name, rows, cols, density, m.nanos / 1e6, bytes);
+    }
+
+    //The fraction of a maze's squares that are walls, to print with mazes read from files
+    private static double wallFraction(ArrayList<String> maze) {
+        long walls = 0;
+        long squares = 0;
+        for (String row : maze) {
+            for (int i = 0; i < row.length(); i++) {
+                walls += (row.charAt(i) == 'X') ? 1 : 0;
+            }
+            squares += row.length();
+        }
+        return (squares == 0) ? 0 : (double) walls / squares;
+    }
+
+    private static void consume(ArrayList<Integer> path) {
+        sink += (path == null) ? -1 : path.size();
+    }
+
+    //Parsing and graph construction
+    private static void parse(int size, double density, ArrayList<String> maze) throws IOException {
+        Path file = Files.createTempFile("maze", ".txt");
+        try {
+            Files.write(file, maze);
+            final String filename = file.toString();
+            run("readMaze", size, density, () -> sink += MazeGraph.readMaze(filename).size());
+            run("MazeLoader.load", size, density, () -> {
+                try {
+                    sink += MazeLoader.load(filename).goalNode;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } finally {
+            Files.delete(file);
+        }
+        run("collectOpenSquares", size, density, () -> sink += MazeGraph.collectOpenSquares(maze).openSquares.size());
+        run("mazeToGraph", size, density, () -> sink += MazeGraph.mazeToGraph(maze).goalNode);
+        run("mazeToCsrGraph", size, density, () -> sink += MazeGraph.mazeToCsrGraph(maze).goalNode);
+        run("GridGraph.fromMaze", size, density, () -> sink += GridGraph.fromMaze(maze).goalNode);
+    }
+
+    //The graph classes' own operations, over every node of the maze graph
+    private static void graphs(int size, double density, ArrayList<String> maze) {
+        final ListGraph list = (ListGraph) MazeGraph.mazeToGraph(maze).graph;
+        final int n = list.getSize();
+        run("ListGraph.getNeighbors", size, density, () -> {
+            for (int v = 0; v < n; v++) {
+                sink += list.getNeighbors(v).size();
+            }
+        });
+        run("ListGraph.areNeighbors", size, density, () -> {
+            for (int v = 0; v + 1 < n; v++) {
+                sink += list.areNeighbors(v, v + 1) ? 1 : 0;
+            }
+        });
+        if (n > 20000) {
+            return;   // an n x n matrix gets too big beyond this
+        }
+        final MatrixGraph matrix = new MatrixGraph(n);
+        int[] neighbors = new int[list.maxDegree()];
+        for (int v = 0; v < n; v++) {
+            int count = list.copyNeighbors(v, neighbors);
+            for (int i = 0; i < count; i++) {
+                matrix.addEdge(v, neighbors[i]);
+            }
+        }
+        run("MatrixGraph.getNeighbors", size, density, () -> {
+            for (int v = 0; v < n; v++) {
+                sink += matrix.getNeighbors(v)[0];
+            }
+        });
+        final int[] buf = new int[matrix.maxDegree()];
+        run("MatrixGraph.copyNeighbors", size, density, () -> {
+            for (int v = 0; v < n; v++) {
+                sink += matrix.copyNeighbors(v, buf);
+            }
+        });
+        run("MatrixGraph.areNeighbors", size, density, () -> {
+            for (int v = 0; v + 1 < n; v++) {
+                sink += matrix.areNeighbors(v, v + 1) ? 1 : 0;
+            }
+        });
+    }
+
+    //The searches, on the maze's ListGraph and GridGraph
+    private static void search(int rows, int cols, double density, ArrayList<String> maze) {
+        final MazeGraph.ProcessedGraph graph = MazeGraph.mazeToGraph(maze);
+        final GridGraph grid = GridGraph.fromMaze(maze);
+
+        run("DFS (ListGraph)", rows, cols, density, () -> consume(MazeGraph.DFS(graph)));
+        run("BFS (ListGraph)", rows, cols, density, () -> consume(MazeGraph.BFS(graph)));
+        run("DFS (GridGraph)", rows, cols, density, () -> consume(MazeGraph.DFS(grid, grid.startNode, grid.goalNode)));
+        run("BFS (GridGraph)", rows, cols, density, () -> consume(MazeGraph.BFS(grid, grid.startNode, grid.goalNode)));
+        run("Bidirectional BFS", rows, cols, density, () -> consume(MazeGraph.bidirectionalBFS(graph).path));
+        run("A*", rows, cols, density, () -> consume(MazeGraph.aStar(graph).path));
+        final ContractedGraph contracted = ContractedGraph.contract(graph);
+        run("Contracted Dijkstra", rows, cols, density, () -> consume(contracted.search().path));
+        final MazeGraph.ProcessedGraph weighted = MazeGraph.mazeToWeightedGraph(maze);
+        final CsrGraph csr = (CsrGraph) weighted.graph;
+        run("Dijkstra (heap)", rows, cols, density, () -> consume(MazeGraph.dijkstra(csr, weighted.startNode,
+                                                                               weighted.goalNode).path));
+        run("Dijkstra (Dial buckets)", rows, cols, density, () -> consume(MazeGraph.dialDijkstra(weighted).path));
+        System.out.println("    expanded: BFS " + MazeGraph.bfsSearch(graph.graph, graph.startNode, graph.goalNode).expanded
+                + ", bidirectional BFS " + MazeGraph.bidirectionalBFS(graph).expanded
+                + ", A* " + MazeGraph.aStar(graph).expanded
+                + ", contracted Dijkstra " + contracted.search().expanded
+                + String.format(" (contraction %.2fx)", contracted.compressionRatio()));
+    }
+
+    //Drawing the maze for people to read, next to the search it shows
+    private static void render(int size, double density, ArrayList<String> maze) {
+        final GridGraph grid = GridGraph.fromMaze(maze);
+        final ArrayList<Integer> path = MazeGraph.BFS(grid, grid.startNode, grid.goalNode);
+        final MazeRenderer renderer = new MazeRenderer(grid);
+        run("nodeMarkedMaze", size, density, () -> sink += MazeGraph.nodeMarkedMaze(maze).size());
+        run("MazeRenderer node-marked", size, density, () -> sink += renderer.render(null, true).limit());
+        run("MazeRenderer path overlay", size, density, () -> sink += renderer.render(path, false).limit());
+        renderer.viewport(0, 0, 40, 80);
+        run("MazeRenderer 40x80 viewport", size, density, () -> sink += renderer.render(path, true).limit());
+    }
+
+    //Open rooms like maze3's, where jump point search should shine
+    private static void open(int size) {
+        double density = 0.5;
+        final ArrayList<String> maze = generate("rooms", size, density);
+        final MazeGraph.ProcessedGraph graph = MazeGraph.mazeToGraph(maze);
+        final GridGraph grid = GridGraph.fromMaze(maze);
+
+        run("BFS (open rooms)", size, density, () -> consume(MazeGraph.BFS(graph)));
+        run("A* (open rooms)", size, density, () -> consume(MazeGraph.aStar(graph).path));
+        run("JPS (open rooms)", size, density, () -> consume(JumpPointSearch.search(grid).path));
+        System.out.println("    expanded: BFS " + MazeGraph.bfsSearch(graph.graph, graph.startNode, graph.goalNode).expanded
+                + ", A* " + MazeGraph.aStar(graph).expanded
+                + ", JPS " + JumpPointSearch.search(grid).expanded);
+
+        //100 agents spread over the maze, all heading for the goal
+        final int[] agents = new int[100];
+        for (int i = 0, v = 0; i < agents.length; v = (v + 7919) % grid.getSize()) {
+            if (grid.isOpen(v)) {
+                agents[i++] = v;
+            }
+        }
+        run("100 agents, BFS each", size, density, () -> {
+            for (int agent : agents) {
+                consume(MazeGraph.BFS(grid, agent, grid.goalNode));
+            }
+        });
+        run("100 agents, flow field", size, density, () -> {
+            FlowField field = new FlowField(grid, grid.goalNode, true);
+            for (int agent : agents) {
+                consume(field.path(agent));
+            }
+        });
+    }
+
+    //Scaling of the parallel search over 1 .. N threads on one large maze.  Allocation is only
+    //counted for the calling thread, so the pool's own allocation does not show up here.
+    private static void parallel() {
+        int size = 1501;
+        double density = 0.25;
+        final GridGraph big = GridGraph.fromMaze(generate("open", size, density));
+        run("BFS (GridGraph)", size, density, () -> consume(MazeGraph.BFS(big, big.startNode, big.goalNode)));
+        int[] reference = null;
+        int maxThreads = Runtime.getRuntime().availableProcessors();
+        for (int t = 1; ; t *= 2) {
+            int threads = Math.min(t, maxThreads);
+            final ForkJoinPool pool = new ForkJoinPool(threads);
+            run("ParallelBFS, " + threads + " threads", size, density,
+                () -> consume(ParallelBFS.search(big, big.startNode, pool).path(big.goalNode)));
+            int[] parents = ParallelBFS.search(big, big.startNode, pool).getParents();
+            if (reference == null) {
+                reference = parents;
+            } else if (!Arrays.equals(reference, parents)) {
+                System.out.println("    parents differ from the 1-thread run!");
+            }
+            pool.shutdown();
+            if (threads == maxThreads) {
+                break;
+            }
+        }
+    }
+
+    private static double[] parseList(String list) {
+        String[] parts = list.split(",");
+        double[] values = new double[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            values[i] = Double.parseDouble(parts[i]);
+        }
+        return values;
+    }
+
+    public static void main(String[] args) throws IOException {
+        String algorithm = "open";
+        double[] sizes = {51, 101, 201, 401};
+        double[] densities = {0.25};
+        boolean defaultSizes = true;
+        Set<String> sections = new LinkedHashSet<String>();
+        for (String arg : args) {
+            if (arg.startsWith("algorithm=")) {
+                algorithm = arg.substring(10);
+            } else if (arg.startsWith("sizes=")) {
+                sizes = parseList(arg.substring(6));
+                defaultSizes = false;
+            } else if (arg.startsWith("densities=")) {
+                densities = parseList(arg.substring(10));
+            } else {
+                sections.add(arg);
+            }
+        }
+        if (sections.isEmpty()) {
+            sections.addAll(Arrays.asList("parse", "graphs", "search", "render", "open", "parallel"));
+        }
+
+        for (double sizeValue : sizes) {
+            int size = (int) sizeValue;
+            for (double density : densities) {
+                ArrayList<String> maze = generate(algorithm, size, density);
+                if (sections.contains("parse")) {
+                    parse(size, density, maze);
+                }
+                if (sections.contains("graphs")) {
+                    graphs(size, density, maze);
+                }
+                if (sections.contains("search")) {
+                    search(size, size, density, maze);
+                }
+                if (sections.contains("render")) {
+                    render(size, density, maze);
+                }
+            }
+            if (sections.contains("open")) {
+                open(size);
+            }
+        }
+        if (sections.contains("search")) {
+            if (defaultSizes) {
+                for (double density : densities) {
+                    search(LARGE_SIZE, LARGE_SIZE, density, generate(algorithm, LARGE_SIZE, density));
+                }
+            }
+            //maze3's open rooms, where stopping at the goal saves the most
+            if (Files.exists(Paths.get("maze3.txt"))) {
+                ArrayList<String> maze3 = MazeGraph.readMaze("maze3.txt");
+                System.out.println("maze3.txt:");
+                search(maze3.size(), maze3.get(0).length(), wallFraction(maze3), maze3);
+            }
+        }
+        if (sections.contains("parallel")) {
+            parallel();
+        }
+        System.out.println("(checksum " + sink + ")");
+    }
+}
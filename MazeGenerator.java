@@ -0,0 +1,412 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+
+/**
+ * Generates reproducible random mazes for load testing.  The same algorithm, size and seed always
+ * give the same maze.  The maze is held as one bit per square while it is built, never as text, and
+ * is streamed out a row at a time in the S/G/X/space text format or as a PackedMaze file, so very
+ * large mazes can be produced quickly in little memory.
+ *
+ * The algorithms are:
+ *   backtracker - a perfect maze carved by a randomized depth-first search; long winding corridors
+ *   kruskal     - a perfect maze from randomized Kruskal's algorithm; many short dead ends
+ *   rooms       - rectangular open rooms joined by corridors, like maze3
+ *   open        - an open grid where each square is a wall with probability equal to the density,
+ *                 with a random staircase corridor carved from start to goal so it is always solvable
+ *
+ * The two perfect-maze algorithms carve cells at odd rows and columns, so odd sizes give the
+ * tightest mazes.  The start is placed near the top left and the goal near the bottom right, on
+ * squares of their own, so a maze too small to hold both (3x3, for instance) is turned down.
+ */
+class MazeGenerator {
+    protected int rows;
+    protected int cols;
+    protected long[] open;         // one bit per square, row by row; 1 means open
+    protected SplittableRandom random;
+    protected long startSquare = -1;
+    protected long goalSquare = -1;
+
+    protected MazeGenerator(int rows, int cols, long seed) {
+        if (rows < 3 || cols < 3) {
+            throw new IllegalArgumentException("a maze needs at least 3 rows and 3 columns");
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.open = new long[(int) (((long) rows * cols + 63) >>> 6)];
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Generates a maze.  The density is only used by the open algorithm (the chance of a wall) and
+     * the rooms algorithm (roughly the fraction of the area given to rooms).
+     */
+    public static MazeGenerator generate(String algorithm, int rows, int cols, long seed, double density) {
+        MazeGenerator maze = new MazeGenerator(rows, cols, seed);
+        // the start and goal need squares of their own: two cells for the perfect mazes, two
+        // squares inside the border for the others
+        boolean perfect = algorithm.equals("backtracker") || algorithm.equals("kruskal");
+        long places = perfect ? (long) maze.cellRows() * maze.cellCols() : (long) (rows - 2) * (cols - 2);
+        if (places < 2) {
+            throw new IllegalArgumentException("a " + rows + "x" + cols + " " + algorithm
+                                               + " maze has no room for a separate start and goal");
+        }
+        switch (algorithm) {
+            case "backtracker":
+                maze.backtracker();
+                break;
+            case "kruskal":
+                maze.kruskal();
+                break;
+            case "rooms":
+                maze.rooms(density);
+                break;
+            case "open":
+                maze.openGrid(density);
+                break;
+            default:
+                throw new IllegalArgumentException("unknown maze algorithm: " + algorithm);
+        }
+        return maze;
+    }
+
+    private boolean isOpen(long square) {
+        return (open[(int) (square >>> 6)] & (1L << square)) != 0;
+    }
+
+    private void setOpen(long square) {
+        open[(int) (square >>> 6)] |= 1L << square;
+    }
+
+    private void setWall(long square) {
+        open[(int) (square >>> 6)] &= ~(1L << square);
+    }
+
+    private long square(int row, int col) {
+        return (long) row * cols + col;
+    }
+
+    /*
+     * The perfect-maze algorithms work on cells, which sit at odd (row, col) squares; carving the
+     * wall between two neighboring cells opens the square between them.
+     */
+    private int cellRows() {
+        return (rows - 1) / 2;
+    }
+
+    private int cellCols() {
+        return (cols - 1) / 2;
+    }
+
+    private long cellSquare(int cell) {
+        return square(2 * (cell / cellCols()) + 1, 2 * (cell % cellCols()) + 1);
+    }
+
+    private void carve(int cell1, int cell2) {
+        long a = cellSquare(cell1);
+        long b = cellSquare(cell2);
+        setOpen(a);
+        setOpen(b);
+        setOpen((a + b) / 2);
+    }
+
+    private void placeCellEnds() {
+        startSquare = cellSquare(0);
+        goalSquare = cellSquare(cellRows() * cellCols() - 1);
+    }
+
+    private void backtracker() {
+        int numCells = cellRows() * cellCols();
+        long[] visited = new long[(numCells + 63) >>> 6];
+        int[] stack = new int[1024];
+        int top = 0;
+        int[] choices = new int[4];
+
+        stack[top++] = 0;
+        visited[0] |= 1L;
+        setOpen(cellSquare(0));
+        while (top > 0) {
+            int cell = stack[top - 1];
+            int row = cell / cellCols();
+            int col = cell % cellCols();
+            int count = 0;
+            if (row > 0) {
+                count = addUnvisited(cell - cellCols(), visited, choices, count);
+            }
+            if (row < cellRows() - 1) {
+                count = addUnvisited(cell + cellCols(), visited, choices, count);
+            }
+            if (col > 0) {
+                count = addUnvisited(cell - 1, visited, choices, count);
+            }
+            if (col < cellCols() - 1) {
+                count = addUnvisited(cell + 1, visited, choices, count);
+            }
+            if (count == 0) {
+                top--;
+                continue;
+            }
+            int next = choices[random.nextInt(count)];
+            visited[next >>> 6] |= 1L << next;
+            carve(cell, next);
+            if (top == stack.length) {
+                stack = Arrays.copyOf(stack, top * 2);
+            }
+            stack[top++] = next;
+        }
+        placeCellEnds();
+    }
+
+    private static int addUnvisited(int cell, long[] visited, int[] choices, int count) {
+        if ((visited[cell >>> 6] & (1L << cell)) == 0) {
+            choices[count++] = cell;
+        }
+        return count;
+    }
+
+    private void kruskal() {
+        int numCells = cellRows() * cellCols();
+        int[] parent = new int[numCells];
+        byte[] rank = new byte[numCells];
+        for (int i = 0; i < numCells; i++) {
+            parent[i] = i;
+            setOpen(cellSquare(i));
+        }
+        // wall 2 * cell is the one right of the cell, 2 * cell + 1 the one below it
+        int[] walls = new int[2 * numCells];
+        int numWalls = 0;
+        for (int cell = 0; cell < numCells; cell++) {
+            if (cell % cellCols() < cellCols() - 1) {
+                walls[numWalls++] = 2 * cell;
+            }
+            if (cell / cellCols() < cellRows() - 1) {
+                walls[numWalls++] = 2 * cell + 1;
+            }
+        }
+        for (int i = numWalls - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = walls[i];
+            walls[i] = walls[j];
+            walls[j] = swap;
+        }
+        for (int i = 0; i < numWalls; i++) {
+            int cell = walls[i] >>> 1;
+            int other = ((walls[i] & 1) == 0) ? cell + 1 : cell + cellCols();
+            int rootA = find(parent, cell);
+            int rootB = find(parent, other);
+            if (rootA != rootB) {
+                // union by rank keeps the trees shallow
+                if (rank[rootA] < rank[rootB]) {
+                    parent[rootA] = rootB;
+                } else {
+                    parent[rootB] = rootA;
+                    if (rank[rootA] == rank[rootB]) {
+                        rank[rootA]++;
+                    }
+                }
+                carve(cell, other);
+            }
+        }
+        placeCellEnds();
+    }
+
+    private static int find(int[] parent, int node) {
+        while (parent[node] != node) {
+            parent[node] = parent[parent[node]];
+            node = parent[node];
+        }
+        return node;
+    }
+
+    private void rooms(double density) {
+        // rooms are placed at random, skipping any that would overlap one already placed, until
+        // they cover about density of the area or too many tries have failed
+        long area = (long) (rows - 2) * (cols - 2);
+        long roomArea = 0;
+        int maxSide = Math.max(3, Math.min(rows, cols) / 4);
+        ArrayList<int[]> placed = new ArrayList<int[]>();
+        for (int tries = 0; tries < 100000 && roomArea < density * area; tries++) {
+            int height = 3 + random.nextInt(Math.max(1, Math.min(maxSide, rows - 4) - 2));
+            int width = 3 + random.nextInt(Math.max(1, Math.min(maxSide, cols - 4) - 2));
+            if (height > rows - 2 || width > cols - 2) {
+                continue;
+            }
+            int top = 1 + random.nextInt(rows - 1 - height);
+            int left = 1 + random.nextInt(cols - 1 - width);
+            int[] room = {top, left, height, width};
+            if (overlaps(room, placed)) {
+                continue;
+            }
+            placed.add(room);
+            roomArea += (long) height * width;
+            for (int r = top; r < top + height; r++) {
+                for (int c = left; c < left + width; c++) {
+                    setOpen(square(r, c));
+                }
+            }
+        }
+        if (placed.isEmpty()) {
+            int[] room = {1, 1, rows - 2, cols - 2};
+            placed.add(room);
+            for (int r = 1; r < rows - 1; r++) {
+                for (int c = 1; c < cols - 1; c++) {
+                    setOpen(square(r, c));
+                }
+            }
+        }
+        // join the rooms in order of their centers, top left to bottom right, with L-shaped corridors
+        placed.sort(Comparator.comparingInt((int[] room) -> room[0] + room[2] / 2 + room[1] + room[3] / 2));
+        for (int i = 0; i + 1 < placed.size(); i++) {
+            int[] a = placed.get(i);
+            int[] b = placed.get(i + 1);
+            corridor(a[0] + a[2] / 2, a[1] + a[3] / 2, b[0] + b[2] / 2, b[1] + b[3] / 2);
+        }
+        int[] first = placed.get(0);
+        int[] last = placed.get(placed.size() - 1);
+        startSquare = square(first[0], first[1]);
+        goalSquare = square(last[0] + last[2] - 1, last[1] + last[3] - 1);
+    }
+
+    private static boolean overlaps(int[] room, ArrayList<int[]> placed) {
+        for (int[] other : placed) {
+            // keep a wall between rooms
+            if (room[0] <= other[0] + other[2] && other[0] <= room[0] + room[2]
+                    && room[1] <= other[1] + other[3] && other[1] <= room[1] + room[3]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void corridor(int row1, int col1, int row2, int col2) {
+        int stepCol = Integer.signum(col2 - col1);
+        for (int c = col1; c != col2; c += stepCol) {
+            setOpen(square(row1, c));
+        }
+        int stepRow = Integer.signum(row2 - row1);
+        for (int r = row1; r != row2; r += stepRow) {
+            setOpen(square(r, col2));
+        }
+        setOpen(square(row2, col2));
+    }
+
+    private void openGrid(double density) {
+        for (int r = 1; r < rows - 1; r++) {
+            for (int c = 1; c < cols - 1; c++) {
+                if (random.nextDouble() >= density) {
+                    setOpen(square(r, c));
+                }
+            }
+        }
+        // a staircase of right and down steps from start to goal, chosen in proportion to the
+        // distance left in each direction, keeps the goal reachable at any density
+        int r = 1;
+        int c = 1;
+        setOpen(square(r, c));
+        while (r < rows - 2 || c < cols - 2) {
+            int down = rows - 2 - r;
+            int right = cols - 2 - c;
+            if (random.nextInt(down + right) < down) {
+                r++;
+            } else {
+                c++;
+            }
+            setOpen(square(r, c));
+        }
+        startSquare = square(1, 1);
+        goalSquare = square(rows - 2, cols - 2);
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * Fills in one row of the maze as maze characters
+     */
+    public void fillRow(int row, byte[] line) {
+        for (int col = 0; col < cols; col++) {
+            long sq = square(row, col);
+            if (sq == startSquare) {
+                line[col] = 'S';
+            } else if (sq == goalSquare) {
+                line[col] = 'G';
+            } else {
+                line[col] = isOpen(sq) ? (byte) ' ' : (byte) 'X';
+            }
+        }
+    }
+
+    /**
+     * Streams the maze out in the text format readMaze reads
+     */
+    public void writeText(OutputStream out) throws IOException {
+        BufferedOutputStream buffered = new BufferedOutputStream(out, 1 << 16);
+        byte[] line = new byte[cols + 1];
+        line[cols] = '\n';
+        for (int row = 0; row < rows; row++) {
+            fillRow(row, line);
+            buffered.write(line);
+        }
+        buffered.flush();
+    }
+
+    /**
+     * Streams the maze out as a PackedMaze file
+     */
+    public void writePacked(Path file) throws IOException {
+        try (PackedMaze.Writer out = new PackedMaze.Writer(file, cols, rows)) {
+            byte[] line = new byte[cols];
+            for (int row = 0; row < rows; row++) {
+                fillRow(row, line);
+                out.writeRow(line);
+            }
+        }
+    }
+
+    /**
+     * Returns the maze as a list of strings, in the form readMaze returns it
+     */
+    public ArrayList<String> toMazeList() {
+        ArrayList<String> maze = new ArrayList<String>(rows);
+        byte[] line = new byte[cols];
+        for (int row = 0; row < rows; row++) {
+            fillRow(row, line);
+            maze.add(new String(line, StandardCharsets.US_ASCII));
+        }
+        return maze;
+    }
+
+
+
+    public static void main(String[] args) throws IOException {
+        // java MazeGenerator <algorithm> <rows> <cols> <seed> [density] [out.txt | out.mzp]
+        if (args.length < 4) {
+            System.err.println("Usage: java MazeGenerator <backtracker|kruskal|rooms|open> <rows> <cols> <seed> [density] [file]");
+            System.err.println("Writes the text format to the file, or to standard output if there is none;");
+            System.err.println("a file ending in .mzp gets the packed binary format instead.");
+            System.exit(2);
+        }
+        double density = (args.length > 4) ? Double.parseDouble(args[4]) : 0.3;
+        long start = System.nanoTime();
+        MazeGenerator maze = generate(args[0], Integer.parseInt(args[1]), Integer.parseInt(args[2]),
+                                      Long.parseLong(args[3]), density);
+        if (args.length > 5 && args[5].endsWith(".mzp")) {
+            maze.writePacked(Paths.get(args[5]));
+        } else if (args.length > 5) {
+            try (OutputStream out = Files.newOutputStream(Paths.get(args[5]))) {
+                maze.writeText(out);
+            }
+        } else {
+            maze.writeText(System.out);
+        }
+        System.err.printf("Generated a %d x %d %s maze in %.1f ms%n", maze.rows, maze.cols, args[0],
+                          (System.nanoTime() - start) / 1e6);
+    }
+}
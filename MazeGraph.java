@@ -7,13 +7,14 @@
  * must be the same length: the number of columns in the maze. Each character
  * represents a grid square. Possible characters are either space for an open
  * square, X for a wall square, S for the starting point, or G for the goal.
+ * A digit 1-9 is an open square that costs that much to step onto.
  * This program then constructs an undirected graph to represent the maze
  */
 
-import javax.xml.soap.Node;
-import java.lang.reflect.Array;
 import java.util.*;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 
 public class MazeGraph {
     static class Position {
@@ -42,29 +43,146 @@ public class MazeGraph {
     }
 
     /* This class holds the information that is p assed to the DFS and BFS algorithms.
-     * It just contains the startNode, goalNode and the graph, represented with adjecency lists.
+     * It just contains the startNode, goalNode and the graph, represented with adjecency lists
+     * (a ListGraph from mazeToGraph, or a CsrGraph from mazeToCsrGraph). Graphs built from a maze
+     * also record the (row, col) square of every node, which the informed searches need, and the
+     * graph's connected components, so that the searches can give up at once on a goal that
+     * cannot be reached.
      */
     static class ProcessedGraph {
         public int startNode;
         public int goalNode;
-        public ListGraph graph;
+        public IntGraph graph;
+        public int[] nodeRow;
+        public int[] nodeCol;
+        public ComponentIndex components;
+        public int maxCost = 1;     //the largest square cost, the largest edge weight of mazeToWeightedGraph
+        //every start and goal node, in reading order; startNode and goalNode are the last of each
+        public int[] startNodes;
+        public int[] goalNodes;
 
-        public ProcessedGraph(int startNode, int goalNode, ListGraph graph) {
+        public ProcessedGraph(int startNode, int goalNode, IntGraph graph) {
             this.startNode = startNode;
             this.goalNode = goalNode;
             this.graph = graph;
+            this.startNodes = new int[] {startNode};
+            this.goalNodes = new int[] {goalNode};
+        }
+
+        public ProcessedGraph(int startNode, int goalNode, IntGraph graph, ProcessedMaze maze) {
+            this(startNode, goalNode, graph);
+            int numOpen = maze.openSquares.size();
+            nodeRow = new int[numOpen];
+            nodeCol = new int[numOpen];
+            for (int i = 0; i < numOpen; i++) {
+                nodeRow[i] = maze.openSquares.get(i).x;
+                nodeCol[i] = maze.openSquares.get(i).y;
+            }
+            components = new ComponentIndex(graph);
+            maxCost = maze.maxCost;
+            startNodes = maze.nodesAt(maze.starts);
+            goalNodes = maze.nodesAt(maze.goals);
+        }
+
+        /* Returns false only if the component index shows that the goal cannot be reached from
+         * the start; without an index it has to assume a path may exist.
+         */
+        public boolean mayReachGoal() {
+            return components == null || components.connected(startNode, goalNode);
+        }
+    }
+
+    /* This class holds the outcome of a search: the path, in the same form that findPath returns
+     * it (null if there is no path), and the number of nodes the search expanded on the way.
+     */
+    static class SearchResult {
+        public ArrayList<Integer> path;
+        public int expanded;
+        //only filled in by dfsSearch, bfsSearch and multiSourceBFS; the other searches leave them at 0
+        public long edgesScanned;
+        public int peakFrontier;
+
+        public SearchResult(ArrayList<Integer> path, int expanded) {
+            this.path = path;
+            this.expanded = expanded;
+        }
+
+        public SearchResult(ArrayList<Integer> path, int expanded, long edgesScanned, int peakFrontier) {
+            this.path = path;
+            this.expanded = expanded;
+            this.edgesScanned = edgesScanned;
+            this.peakFrontier = peakFrontier;
         }
     }
 
+    /* The outcome of a search from many starts to many goals: the start and goal that are closest
+     * together (-1 if no goal can be reached) and the path between them, in the same form as above.
+     */
+    static class MultiSearchResult extends SearchResult {
+        public int start;
+        public int goal;
+
+        public MultiSearchResult(ArrayList<Integer> path, int expanded, long edgesScanned, int peakFrontier,
+                                 int start, int goal) {
+            super(path, expanded, edgesScanned, peakFrontier);
+            this.start = start;
+            this.goal = goal;
+        }
+    }
+
+    /* This class holds the open squares found by collectOpenSquares. Besides the list of
+     * open squares, it keeps a dense table with one entry per grid square (row * width + col)
+     * that holds the node number of that square, or -1 if the square is not open.
+     */
     static class ProcessedMaze {
         public Position startNode;
         public Position goalNode;
         public ArrayList<Position> openSquares;
+        public int[] nodeIndex;
+        public int width;
+        public byte[] cellCost;     //the cost of stepping onto each square, in the same layout as nodeIndex
+        public int maxCost;         //the largest cost in the maze; 1 when it has no digit squares
+        public ArrayList<Position> starts;     //every S, in reading order; startNode is the last one
+        public ArrayList<Position> goals;      //every G, in reading order; goalNode is the last one
 
-        public ProcessedMaze(Position startNode, Position goalNode, ArrayList<Position> openSquares) {
+        public ProcessedMaze(Position startNode, Position goalNode, ArrayList<Position> openSquares,
+                             int[] nodeIndex, int width, byte[] cellCost, int maxCost,
+                             ArrayList<Position> starts, ArrayList<Position> goals) {
             this.startNode = startNode;
             this.goalNode = goalNode;
+            this.starts = starts;
+            this.goals = goals;
             this.openSquares = openSquares;
+            this.nodeIndex = nodeIndex;
+            this.width = width;
+            this.cellCost = cellCost;
+            this.maxCost = maxCost;
+        }
+
+        /* Returns the node numbers of a list of squares, such as starts or goals
+         */
+        public int[] nodesAt(ArrayList<Position> squares) {
+            int[] nodes = new int[squares.size()];
+            for (int i = 0; i < nodes.length; i++) {
+                nodes[i] = nodeAt(squares.get(i).x, squares.get(i).y);
+            }
+            return nodes;
+        }
+
+        /* Returns the cost of stepping onto the open square at (row, col)
+         */
+        public int costAt(int row, int col) {
+            return cellCost[row * width + col];
+        }
+
+        /* Returns the node number of the square at (row, col), or -1 if that square is
+         * a wall or lies outside the maze.
+         */
+        public int nodeAt(int row, int col) {
+            if (row < 0 || col < 0 || col >= width || row >= nodeIndex.length / Math.max(width, 1)) {
+                return -1;
+            }
+            return nodeIndex[row * width + col];
         }
     }
 
@@ -73,17 +191,17 @@ public class MazeGraph {
      * of lines. It is assumed that the outline of the maze will all be filled in;
      * any characters before the first X or after the last X is discarded.  It builds
      * a list whose contents are each rows of the maze. Each row is represented as a string.
+     * If the file cannot be read, it throws an UncheckedIOException saying why. MazeLoader
+     * reads the same files straight into a GridGraph, and checks their contents as well.
      */
         ArrayList<String> result = new ArrayList<String>();
-        try {
-            BufferedReader br = new BufferedReader(new FileReader(filename));
+        try (BufferedReader br = new BufferedReader(new FileReader(filename))) {
             String line;
             while((line = br.readLine()) != null) {
                 result.add(line.trim());
             }
-            br.close();
         } catch(IOException e) {
-
+            throw new UncheckedIOException("Cannot read maze " + filename, e);
         }
 
         return result;
@@ -109,41 +227,138 @@ public class MazeGraph {
     */
         ProcessedMaze maze = collectOpenSquares(mazelist);
         if(maze != null) {
-            int startNode = maze.openSquares.lastIndexOf(maze.startNode);
-            int goalNode = maze.openSquares.lastIndexOf(maze.goalNode);
+            int startNode = maze.nodeAt(maze.startNode.x, maze.startNode.y);
+            int goalNode = maze.nodeAt(maze.goalNode.x, maze.goalNode.y);
             int numOpen = maze.openSquares.size();
             ListGraph mazegraph = new ListGraph(numOpen);
 
+            //neighbors are looked up in the node table, in the order up, down, left, right
             for (int i = 0; i < numOpen; i++) {
                 int x = maze.openSquares.get(i).x;
                 int y = maze.openSquares.get(i).y;
                 for (int j = -1; j <= 1; j += 2) {
-                    int k = 0;
-                    Position neigh = new Position(x+j, y+k);
-                    if (maze.openSquares.contains(neigh)) {
-                        int neighIdx = maze.openSquares.lastIndexOf(neigh);
+                    int neighIdx = maze.nodeAt(x+j, y);
+                    if (neighIdx != -1) {
                         mazegraph.addEdge(i, neighIdx);
                     }
                 }
                 for (int k = -1; k <= 1; k += 2) {
-                    int j = 0;
-                    Position neigh = new Position(x+j, y+k);
-                    if (maze.openSquares.contains(neigh)) {
-                        int neighIdx = maze.openSquares.lastIndexOf(neigh);
+                    int neighIdx = maze.nodeAt(x, y+k);
+                    if (neighIdx != -1) {
                         mazegraph.addEdge(i, neighIdx);
                     }
                 }
 
             }
 
-            return new ProcessedGraph(startNode, goalNode, mazegraph);
+            return new ProcessedGraph(startNode, goalNode, mazegraph, maze);
         } else {
             return null;
         }
     }
 
+    public static ProcessedGraph mazeToCsrGraph(ArrayList<String> mazelist) {
+    /* Builds the same graph as mazeToGraph, with the same node numbers and neighbor order,
+     * but stores it as an immutable CsrGraph: two int arrays instead of a list of lists.
+     */
+        ProcessedMaze maze = collectOpenSquares(mazelist);
+        if(maze != null) {
+            int startNode = maze.nodeAt(maze.startNode.x, maze.startNode.y);
+            int goalNode = maze.nodeAt(maze.goalNode.x, maze.goalNode.y);
+            int numOpen = maze.openSquares.size();
+            CsrGraph.Builder builder = new CsrGraph.Builder(numOpen);
+
+            for (int i = 0; i < numOpen; i++) {
+                int x = maze.openSquares.get(i).x;
+                int y = maze.openSquares.get(i).y;
+                for (int j = -1; j <= 1; j += 2) {
+                    int neighIdx = maze.nodeAt(x+j, y);
+                    if (neighIdx != -1) {
+                        builder.addEdge(i, neighIdx);
+                    }
+                }
+                for (int k = -1; k <= 1; k += 2) {
+                    int neighIdx = maze.nodeAt(x, y+k);
+                    if (neighIdx != -1) {
+                        builder.addEdge(i, neighIdx);
+                    }
+                }
+            }
+
+            return new ProcessedGraph(startNode, goalNode, builder.build(), maze);
+        } else {
+            return null;
+        }
+    }
+
+    public static ProcessedGraph mazeToWeightedGraph(ArrayList<String> mazelist) {
+    /* Builds a weighted CsrGraph with the same node numbers as mazeToCsrGraph. Every open square has
+     * one directed edge to each open neighbor, carrying the cost of the square it leads to: 1 for a
+     * space or the goal, and the digit's value for a digit square. So stepping onto a 5 costs 5 and
+     * stepping back off it costs 1. On a maze without digits every edge costs 1.
+     */
+        ProcessedMaze maze = collectOpenSquares(mazelist);
+        if(maze != null) {
+            int startNode = maze.nodeAt(maze.startNode.x, maze.startNode.y);
+            int goalNode = maze.nodeAt(maze.goalNode.x, maze.goalNode.y);
+            int numOpen = maze.openSquares.size();
+            CsrGraph.Builder builder = new CsrGraph.Builder(numOpen);
+
+            for (int i = 0; i < numOpen; i++) {
+                int x = maze.openSquares.get(i).x;
+                int y = maze.openSquares.get(i).y;
+                for (int j = -1; j <= 1; j += 2) {
+                    int neighIdx = maze.nodeAt(x+j, y);
+                    if (neighIdx != -1) {
+                        builder.addDirectedEdge(i, neighIdx, maze.costAt(x+j, y));
+                    }
+                }
+                for (int k = -1; k <= 1; k += 2) {
+                    int neighIdx = maze.nodeAt(x, y+k);
+                    if (neighIdx != -1) {
+                        builder.addDirectedEdge(i, neighIdx, maze.costAt(x, y+k));
+                    }
+                }
+            }
+
+            return new ProcessedGraph(startNode, goalNode, builder.build(), maze);
+        } else {
+            return null;
+        }
+    }
+
+    public static ArrayList<Integer> gridPathToNodes(ArrayList<Integer> gridPath, ProcessedMaze maze) {
+    /* Takes a path of GridGraph node numbers (row * width + col) and returns the node numbers that
+     * mazeToGraph gives to the same squares, so that grid searches can be compared with the others.
+     */
+        if (gridPath == null) {
+            return null;
+        }
+        ArrayList<Integer> path = new ArrayList<Integer>(gridPath.size());
+        for (int cell : gridPath) {
+            path.add(maze.nodeIndex[cell]);
+        }
+        return path;
+    }
+
     public static ProcessedMaze collectOpenSquares(ArrayList<String> mazelist) {
+    /* Walks the maze row by row and numbers every open square in the order it is found.
+     * Along the way it fills in the node table of the ProcessedMaze, so that the node
+     * number of any (row, col) square can be looked up directly. Every S and G is kept;
+     * the last of each is also the maze's startNode and goalNode.
+     */
+        int width = 0;
+        for (String rowString : mazelist) {
+            width = Math.max(width, rowString.length());
+        }
+        int[] nodeIndex = new int[mazelist.size() * width];
+        Arrays.fill(nodeIndex, -1);
+        byte[] cellCost = new byte[nodeIndex.length];
+        int maxCost = 1;
+
         ArrayList<Position> openList = new ArrayList<Position>();
+        ArrayList<Position> starts = new ArrayList<Position>();
+        ArrayList<Position> goals = new ArrayList<Position>();
         Position startPos = null;
         Position goalPos = null;
         for (int row = 0; row < mazelist.size(); row++) {
@@ -151,18 +366,25 @@ public class MazeGraph {
             for (int col = 0; col < rowString.length(); col++) {
                 char val = rowString.charAt(col);
                 val = Character.toUpperCase(val);
-                if (" SG".indexOf(val) != -1) {
+                if (GridGraph.isOpenCell(val)) {
+                    nodeIndex[row * width + col] = openList.size();
                     openList.add( new Position(row, col));
+                    int cost = GridGraph.cellCost((byte) val);
+                    cellCost[row * width + col] = (byte) cost;
+                    maxCost = Math.max(maxCost, cost);
                 }
-                if ("S".indexOf(val) != -1) {
+                if (val == 'S') {
                     startPos = new Position(row, col);
-                } else if ("G".indexOf(val) != -1) {
+                    starts.add(startPos);
+                } else if (val == 'G') {
                     goalPos = new Position(row, col);
+                    goals.add(goalPos);
                 }
             }
         }
         if (startPos != null && goalPos != null)
-            return (new ProcessedMaze(startPos, goalPos, openList));
+            return (new ProcessedMaze(startPos, goalPos, openList, nodeIndex, width, cellCost, maxCost,
+                                      starts, goals));
         else
             return null;
     }
@@ -174,42 +396,44 @@ public class MazeGraph {
      * that represents its node number. To keep it compact, only the ones-place digit is stored;
      * you can deduce the rest of the number from context. At the end of each line, it prints the
      * last node number occurring on that line, and the node numbers for the start and goal if found."""
+     * Each row is built in one StringBuilder. MazeRenderer draws the same view straight into a buffer.
      */
         int count = 0;
         ArrayList<String> newMazeList = new ArrayList<String>();
+        StringBuilder newrow = new StringBuilder();
         for (String row : unmarkedMaze) {
             int startFound = -1;
             int goalFound = -1;
-            String newrow = "";
+            newrow.setLength(0);
             for (int i = 0; i < row.length(); i++) {
                 char sqVal = row.charAt(i);
                 sqVal = Character.toUpperCase(sqVal);
-                if ("X".lastIndexOf(sqVal) != -1) {
-                    newrow = newrow + "X";
-                } else if(" SG".lastIndexOf(sqVal) != -1) {
-                    String val = String.valueOf(count % 10);
-                    if ("S".equals(sqVal)) {
-                        val = "S";
+                if (sqVal == 'X') {
+                    newrow.append('X');
+                } else if (GridGraph.isOpenCell(sqVal)) {
+                    char val = (char) ('0' + count % 10);
+                    if (sqVal == 'S') {
+                        val = 'S';
                         startFound = count;
-                    } else if ("G".equals(sqVal)) {
-                        val = "G";
+                    } else if (sqVal == 'G') {
+                        val = 'G';
                         goalFound = count;
                     }
-                    newrow = newrow + val;
+                    newrow.append(val);
                     count++;
                 } else {
                     System.out.println("Error");
                 }
             }
-            newrow = newrow + "     " + (count - 1);
+            newrow.append("     ").append(count - 1);
             if (startFound != -1) {
-                newrow = newrow + "    Start at " + startFound;
+                newrow.append("    Start at ").append(startFound);
             }
             if (goalFound != -1) {
-                newrow = newrow + "    Goal at " + goalFound;
+                newrow.append("    Goal at ").append(goalFound);
             }
 
-            newMazeList.add(newrow);
+            newMazeList.add(newrow.toString());
         }
         return newMazeList;
     }
@@ -231,6 +455,20 @@ public class MazeGraph {
         return path;
     }
 
+    //Same as above, for searches that keep the parent of every marked node in an array
+    public static ArrayList<Integer> findPath(int[] parent, BitSet mark, int goal) {
+        if (goal < 0 || !mark.get(goal)) {
+            return null;
+        }
+        ArrayList<Integer> path = new ArrayList<Integer>();
+        int current = parent[goal];
+        while (current != -1) {
+            path.add(current);
+            current = parent[current];
+        }
+        return path;
+    }
+
     public static ArrayList<Integer> DFS(ProcessedGraph processedGraph) {
     /*
      * Takes in a ProcessedGraph object which contains a graph represented as an adjacency list, the node number for the starting point,
@@ -238,35 +476,75 @@ public class MazeGraph {
      * the Depth-First Seach algorithm. The search starts from the startNode, and continues only until the
      * goalNode is reached. If there is no path from start to goal then an empty list is returned.
      */
-        int start = processedGraph.startNode;
-        int goal = processedGraph.goalNode;
-        //keep track of visited nodes
-        ArrayList<Integer> mark = new ArrayList<Integer>();
-        //DFS data structure
-        Stack<Integer> s = new Stack<Integer>();
-        //Key is the parent node, value is the child node
-        Map<Integer, Integer> visited = new HashMap<Integer, Integer>();
+        return dfsSearch(processedGraph).path;
+    }
+
+    public static SearchResult dfsSearch(ProcessedGraph processedGraph) {
+    /*
+     * DFS with its counters. A goal in a different component from the start is turned down without
+     * searching, giving a null path and nothing expanded.
+     */
+        if (!processedGraph.mayReachGoal()) {
+            return new SearchResult(null, 0);
+        }
+        return dfsSearch(processedGraph.graph, processedGraph.startNode, processedGraph.goalNode);
+    }
 
-        mark.add(start);
+    public static ArrayList<Integer> DFS(IntGraph graph, int start, int goal) {
+    /*
+     * The same search as above, but on any IntGraph (for example a GridGraph) with the start and goal
+     * node numbers passed in directly.
+     */
+        return dfsSearch(graph, start, goal).path;
+    }
 
-        s.push(start);
+    public static SearchResult dfsSearch(IntGraph graph, int start, int goal) {
+    /*
+     * The depth-first search behind DFS. Nodes are marked when they are pushed, and the parent of a node
+     * never changes once it is marked, so the search can stop as soon as the goal is pushed. Besides the
+     * path it reports the nodes expanded, the neighbors looked at and the deepest the stack got, which
+     * only costs a few local counters.
+     */
+        int n = graph.getSize();
+        //keep track of visited nodes
+        BitSet mark = new BitSet(n);
+        //DFS data structure; every node is pushed at most once
+        int[] s = new int[n];
+        int top = 0;
+        //parent[v] is the node v was reached from
+        int[] parent = new int[n];
+        int[] neighbors = new int[graph.maxDegree()];
+        int expanded = 0;
+        long edgesScanned = 0;
+        int peakFrontier = 1;
+
+        mark.set(start);
+        s[top++] = start;
         //start node has no parent
-        visited.put(start, -1);
+        parent[start] = -1;
 
-        while (!s.isEmpty()) {
-            int v = s.pop();
-            List<Integer> neighbors = processedGraph.graph.getNeighbors(v);
-            for (Integer u : neighbors) {
+        while (top > 0 && start != goal) {
+            int v = s[--top];
+            expanded++;
+            int numNeighbors = graph.copyNeighbors(v, neighbors);
+            edgesScanned += numNeighbors;
+            for (int i = 0; i < numNeighbors; i++) {
+                int u = neighbors[i];
                 //records marked nodes, then pushes the value from stack, & lastly records parent-child relationship.
-                if (!mark.contains(u)) {
-                    mark.add(u);
-                    s.push(u);
-                    visited.put(u, v);
+                if (!mark.get(u)) {
+                    mark.set(u);
+                    s[top++] = u;
+                    parent[u] = v;
+                    if (u == goal) {
+                        return new SearchResult(findPath(parent, mark, goal), expanded, edgesScanned,
+                                                Math.max(peakFrontier, top));
+                    }
                 }
             }
+            peakFrontier = Math.max(peakFrontier, top);
         }
         //calls the helper function
-        return findPath(visited, goal);
+        return new SearchResult(findPath(parent, mark, goal), expanded, edgesScanned, peakFrontier);
     }
 
     public static ArrayList<Integer> BFS(ProcessedGraph processedGraph) {
@@ -276,37 +554,406 @@ public class MazeGraph {
      * the Breadth-First Seach algorithm. The search starts from the startNode, and continues only until the
      * goalNode is reached. If there is no path from start to goal then an empty list is returned.
      */
+        return bfsSearch(processedGraph).path;
+    }
 
-        //The only difference between DFS is the data structure. BFS uses queue instead of stack.
-        int start = processedGraph.startNode;
-        int goal = processedGraph.goalNode;
+    public static SearchResult bfsSearch(ProcessedGraph processedGraph) {
+    /*
+     * BFS with its counters. A goal in a different component from the start is turned down without
+     * searching, giving a null path and nothing expanded.
+     */
+        if (!processedGraph.mayReachGoal()) {
+            return new SearchResult(null, 0);
+        }
+        return bfsSearch(processedGraph.graph, processedGraph.startNode, processedGraph.goalNode);
+    }
+
+    public static ArrayList<Integer> BFS(IntGraph graph, int start, int goal) {
+    /*
+     * The same search as above, but on any IntGraph (for example a GridGraph) with the start and goal
+     * node numbers passed in directly. It stops as soon as the goal is reached.
+     */
+        return bfsSearch(graph, start, goal).path;
+    }
 
-        ArrayList<Integer> mark = new ArrayList<Integer>();
-        //BFS data structure
-        Queue<Integer> q = new LinkedList<Integer>();
-        Map<Integer, Integer> visited = new HashMap<Integer, Integer>();
+    public static SearchResult bfsSearch(IntGraph graph, int start, int goal) {
+    /*
+     * The breadth-first search behind BFS. Besides the path it reports how many nodes were taken
+     * off the queue and expanded, for comparison with the other searches, along with the neighbors
+     * looked at and the longest the queue got.
+     */
 
-        mark.add(start);
+        //The only difference between DFS is the data structure. BFS uses queue instead of stack.
+        int n = graph.getSize();
+        BitSet mark = new BitSet(n);
+        //BFS data structure; every node is enqueued at most once, so it never wraps around
+        int[] q = new int[n];
+        int head = 0;
+        int tail = 0;
+        int[] parent = new int[n];
+        int[] neighbors = new int[graph.maxDegree()];
+        long edgesScanned = 0;
+        int peakFrontier = 1;
+
+        mark.set(start);
         //enqeue
-        q.add(start);
+        q[tail++] = start;
 
-        visited.put(start, -1);
+        parent[start] = -1;
 
-        while (!q.isEmpty()) {
+        while (head < tail && start != goal) {
             //deqeue
-            int v = q.remove();
-            List<Integer> neighbors = processedGraph.graph.getNeighbors(v);
-            for (Integer u : neighbors) {
-                if (!mark.contains(u)) {
-                    mark.add(u);
-                    q.add(u);
-                    visited.put(u, v);
+            int v = q[head++];
+            int numNeighbors = graph.copyNeighbors(v, neighbors);
+            edgesScanned += numNeighbors;
+            for (int i = 0; i < numNeighbors; i++) {
+                int u = neighbors[i];
+                if (!mark.get(u)) {
+                    mark.set(u);
+                    q[tail++] = u;
+                    parent[u] = v;
+                    if (u == goal) {
+                        return new SearchResult(findPath(parent, mark, goal), head, edgesScanned,
+                                                Math.max(peakFrontier, tail - head));
+                    }
                 }
             }
+            peakFrontier = Math.max(peakFrontier, tail - head);
         }
-        return findPath(visited, goal);
+        return new SearchResult(findPath(parent, mark, goal), head, edgesScanned, peakFrontier);
      }
 
+    public static MultiSearchResult multiSourceBFS(ProcessedGraph processedGraph) {
+    /*
+     * Finds the closest start and goal pair among every S and G of the maze, with a single
+     * breadth-first search instead of one BFS per pair.
+     */
+        return multiSourceBFS(processedGraph.graph, processedGraph.startNodes, processedGraph.goalNodes);
+    }
+
+    public static MultiSearchResult multiSourceBFS(IntGraph graph, int[] starts, int[] goals) {
+    /*
+     * Every start is put in the queue at once, as if they were all one node, so the first goal the
+     * search reaches is a goal closest to any start. Following parents back from that goal ends at
+     * the start it was reached from. Like bfsSearch it stops as soon as the goal is reached, and it
+     * counts the neighbors looked at and the longest the queue got in the same way.
+     */
+        int n = graph.getSize();
+        BitSet isGoal = new BitSet(n);
+        for (int g : goals) {
+            isGoal.set(g);
+        }
+        BitSet mark = new BitSet(n);
+        int[] q = new int[n];
+        int head = 0;
+        int tail = 0;
+        int[] parent = new int[n];
+        int[] neighbors = new int[graph.maxDegree()];
+        long edgesScanned = 0;
+
+        for (int s : starts) {
+            if (isGoal.get(s)) {
+                //a square that is both a start and a goal is its own nearest pair
+                return new MultiSearchResult(new ArrayList<Integer>(), 0, 0, 1, s, s);
+            }
+            if (!mark.get(s)) {
+                mark.set(s);
+                q[tail++] = s;
+                parent[s] = -1;
+            }
+        }
+        int peakFrontier = tail;
+
+        while (head < tail) {
+            int v = q[head++];
+            int numNeighbors = graph.copyNeighbors(v, neighbors);
+            edgesScanned += numNeighbors;
+            for (int i = 0; i < numNeighbors; i++) {
+                int u = neighbors[i];
+                if (!mark.get(u)) {
+                    mark.set(u);
+                    q[tail++] = u;
+                    parent[u] = v;
+                    if (isGoal.get(u)) {
+                        ArrayList<Integer> path = findPath(parent, mark, u);
+                        return new MultiSearchResult(path, head, edgesScanned, Math.max(peakFrontier, tail - head),
+                                                     path.get(path.size() - 1), u);
+                    }
+                }
+            }
+            peakFrontier = Math.max(peakFrontier, tail - head);
+        }
+        return new MultiSearchResult(null, head, edgesScanned, peakFrontier, -1, -1);
+    }
+
+    public static SearchResult bidirectionalBFS(ProcessedGraph processedGraph) {
+    /*
+     * Finds a shortest path from startNode to goalNode by running two breadth-first searches at once,
+     * one forward from the start and one backward from the goal. Each round it expands one whole level
+     * of whichever side has the smaller frontier, and it stops at the end of the first level in which
+     * the two sides meet. The path comes back in the same form as BFS returns it. The graph must be
+     * undirected, as all of the graphs built from mazes are.
+     */
+        if (!processedGraph.mayReachGoal()) {
+            return new SearchResult(null, 0);
+        }
+        return bidirectionalBFS(processedGraph.graph, processedGraph.startNode, processedGraph.goalNode);
+    }
+
+    public static SearchResult bidirectionalBFS(IntGraph graph, int start, int goal) {
+        if (start == goal) {
+            return new SearchResult(new ArrayList<Integer>(), 0);
+        }
+        int n = graph.getSize();
+        //distance and parent of every node, one set for each direction; -1 means not reached yet
+        int[] distF = new int[n];
+        int[] distB = new int[n];
+        Arrays.fill(distF, -1);
+        Arrays.fill(distB, -1);
+        int[] parentF = new int[n];
+        int[] parentB = new int[n];
+        int[] qF = new int[n];
+        int[] qB = new int[n];
+        int headF = 0, tailF = 0, headB = 0, tailB = 0;
+        int[] neighbors = new int[graph.maxDegree()];
+
+        distF[start] = 0;
+        parentF[start] = -1;
+        qF[tailF++] = start;
+        distB[goal] = 0;
+        parentB[goal] = -1;
+        qB[tailB++] = goal;
+
+        int expanded = 0;
+        int meet = -1;
+        int best = Integer.MAX_VALUE;
+        while (meet == -1 && headF < tailF && headB < tailB) {
+            boolean forward = (tailF - headF) <= (tailB - headB);
+            int[] q = forward ? qF : qB;
+            int[] dist = forward ? distF : distB;
+            int[] parent = forward ? parentF : parentB;
+            int[] otherDist = forward ? distB : distF;
+            int head = forward ? headF : headB;
+            int tail = forward ? tailF : tailB;
+
+            //expand every node of the current level, so that the best meeting point of the level is found
+            int levelEnd = tail;
+            while (head < levelEnd) {
+                int v = q[head++];
+                expanded++;
+                int numNeighbors = graph.copyNeighbors(v, neighbors);
+                for (int i = 0; i < numNeighbors; i++) {
+                    int u = neighbors[i];
+                    if (dist[u] == -1) {
+                        dist[u] = dist[v] + 1;
+                        parent[u] = v;
+                        q[tail++] = u;
+                        if (otherDist[u] != -1 && dist[u] + otherDist[u] < best) {
+                            best = dist[u] + otherDist[u];
+                            meet = u;
+                        }
+                    }
+                }
+            }
+
+            if (forward) {
+                headF = head;
+                tailF = tail;
+            } else {
+                headB = head;
+                tailB = tail;
+            }
+        }
+        if (meet == -1) {
+            return new SearchResult(null, expanded);
+        }
+
+        //the path runs from the node before the goal back to the start, as findPath builds it
+        ArrayList<Integer> towardGoal = new ArrayList<Integer>();
+        for (int current = meet; current != -1; current = parentB[current]) {
+            towardGoal.add(current);
+        }
+        ArrayList<Integer> path = new ArrayList<Integer>();
+        for (int i = towardGoal.size() - 2; i >= 0; i--) {
+            path.add(towardGoal.get(i));
+        }
+        for (int current = parentF[meet]; current != -1; current = parentF[current]) {
+            path.add(current);
+        }
+        return new SearchResult(path, expanded);
+    }
+
+    public static SearchResult aStar(ProcessedGraph processedGraph) {
+    /*
+     * Finds a shortest path from startNode to goalNode with the A* algorithm, using the Manhattan
+     * distance between squares as the estimate of the remaining distance. The estimate never
+     * overstates the distance, so the path is as short as the one BFS finds. Among nodes with the
+     * same estimated total it expands the one furthest from the start first, which saves a lot of
+     * work in open rooms. The graph must have come from a maze, so that nodeRow and nodeCol are set.
+     */
+        if (!processedGraph.mayReachGoal()) {
+            return new SearchResult(null, 0);
+        }
+        return aStar(processedGraph.graph, processedGraph.startNode, processedGraph.goalNode,
+                     processedGraph.nodeRow, processedGraph.nodeCol);
+    }
+
+    public static SearchResult aStar(IntGraph graph, int start, int goal, int[] nodeRow, int[] nodeCol) {
+        int n = graph.getSize();
+        //best known distance from the start; Integer.MAX_VALUE means not reached yet
+        int[] g = new int[n];
+        Arrays.fill(g, Integer.MAX_VALUE);
+        int[] parent = new int[n];
+        BitSet reached = new BitSet(n);
+        BitSet closed = new BitSet(n);
+        IndexedIntHeap open = new IndexedIntHeap(n);
+        int[] neighbors = new int[graph.maxDegree()];
+
+        g[start] = 0;
+        parent[start] = -1;
+        reached.set(start);
+        open.insert(start, aStarKey(0, manhattan(start, goal, nodeRow, nodeCol)));
+
+        int expanded = 0;
+        while (!open.isEmpty()) {
+            int v = open.pollMin();
+            if (v == goal) {
+                break;
+            }
+            closed.set(v);
+            expanded++;
+            int numNeighbors = graph.copyNeighbors(v, neighbors);
+            for (int i = 0; i < numNeighbors; i++) {
+                int u = neighbors[i];
+                int newG = g[v] + 1;
+                if (closed.get(u) || newG >= g[u]) {
+                    continue;
+                }
+                g[u] = newG;
+                parent[u] = v;
+                reached.set(u);
+                long key = aStarKey(newG, manhattan(u, goal, nodeRow, nodeCol));
+                if (open.contains(u)) {
+                    open.decreaseKey(u, key);
+                } else {
+                    open.insert(u, key);
+                }
+            }
+        }
+        return new SearchResult(findPath(parent, reached, goal), expanded);
+    }
+
+    public static SearchResult dijkstra(CsrGraph graph, int start, int goal) {
+    /*
+     * Finds a cheapest path from start to goal in a weighted CsrGraph with Dijkstra's algorithm. The
+     * path comes back in the same form as BFS returns it. Weights must not be negative.
+     */
+        int n = graph.getSize();
+        long[] dist = new long[n];
+        Arrays.fill(dist, Long.MAX_VALUE);
+        int[] parent = new int[n];
+        BitSet reached = new BitSet(n);
+        BitSet closed = new BitSet(n);
+        IndexedIntHeap open = new IndexedIntHeap(n);
+
+        dist[start] = 0;
+        parent[start] = -1;
+        reached.set(start);
+        open.insert(start, 0);
+
+        int expanded = 0;
+        while (!open.isEmpty()) {
+            int v = open.pollMin();
+            if (v == goal) {
+                break;
+            }
+            closed.set(v);
+            expanded++;
+            for (int e = graph.firstEdge(v); e < graph.endEdge(v); e++) {
+                int u = graph.edgeTarget(e);
+                long newDist = dist[v] + graph.edgeWeight(e);
+                if (closed.get(u) || newDist >= dist[u]) {
+                    continue;
+                }
+                dist[u] = newDist;
+                parent[u] = v;
+                reached.set(u);
+                if (open.contains(u)) {
+                    open.decreaseKey(u, newDist);
+                } else {
+                    open.insert(u, newDist);
+                }
+            }
+        }
+        return new SearchResult(findPath(parent, reached, goal), expanded);
+    }
+
+    public static SearchResult dialDijkstra(CsrGraph graph, int start, int goal, int maxWeight) {
+    /*
+     * The same search as dijkstra, for graphs whose weights are small positive ints no larger than
+     * maxWeight, such as the terrain costs of mazeToWeightedGraph. The comparison heap is replaced by
+     * a BucketQueue with one bucket per possible distance, so every queue operation takes constant time.
+     */
+        int n = graph.getSize();
+        int[] dist = new int[n];
+        Arrays.fill(dist, Integer.MAX_VALUE);
+        int[] parent = new int[n];
+        BitSet reached = new BitSet(n);
+        BucketQueue open = new BucketQueue(n, maxWeight);
+
+        dist[start] = 0;
+        parent[start] = -1;
+        reached.set(start);
+        open.insert(start, 0);
+
+        int expanded = 0;
+        while (!open.isEmpty()) {
+            int v = open.pollMin();
+            if (v == goal) {
+                break;
+            }
+            expanded++;
+            for (int e = graph.firstEdge(v); e < graph.endEdge(v); e++) {
+                int u = graph.edgeTarget(e);
+                int newDist = dist[v] + graph.edgeWeight(e);
+                //a node already taken out of the queue has dist no larger than dist[v]
+                if (newDist >= dist[u]) {
+                    continue;
+                }
+                dist[u] = newDist;
+                parent[u] = v;
+                reached.set(u);
+                if (open.contains(u)) {
+                    open.decreaseKey(u, newDist);
+                } else {
+                    open.insert(u, newDist);
+                }
+            }
+        }
+        return new SearchResult(findPath(parent, reached, goal), expanded);
+    }
+
+    public static SearchResult dialDijkstra(ProcessedGraph processedGraph) {
+    /*
+     * dialDijkstra on a graph from mazeToWeightedGraph, turning down an unreachable goal without searching
+     */
+        if (!processedGraph.mayReachGoal()) {
+            return new SearchResult(null, 0);
+        }
+        return dialDijkstra((CsrGraph) processedGraph.graph, processedGraph.startNode, processedGraph.goalNode,
+                            processedGraph.maxCost);
+    }
+
+    //Manhattan distance between the squares of two nodes
+    private static int manhattan(int node, int goal, int[] nodeRow, int[] nodeCol) {
+        return Math.abs(nodeRow[node] - nodeRow[goal]) + Math.abs(nodeCol[node] - nodeCol[goal]);
+    }
+
+    //Heap key ordering nodes by f = g + h, and among equal f by larger g
+    private static long aStarKey(int g, int h) {
+        return ((long) (g + h) << 32) | (0xFFFFFFFFL - g);
+    }
+
     public static void testMaze(String mazeFile) {
     /*
      * Takes a filename as input. It reads the maze from that file, and
@@ -316,22 +963,62 @@ public class MazeGraph {
      * have define BFS and DFS, uncomment these lines to test and print the
      * result.
      */
+        long parseStart = System.nanoTime();
         ArrayList<String> unprocessedMaze = readMaze(mazeFile);
+        long parseNanos = System.nanoTime() - parseStart;
         printMaze(unprocessedMaze);
+        long buildStart = System.nanoTime();
         ProcessedGraph processedGraph = mazeToGraph(unprocessedMaze);
+        long buildNanos = System.nanoTime() - buildStart;
+        if (processedGraph == null) {
+            System.out.println(mazeFile + ": the maze needs both a start (S) and a goal (G)");
+            return;
+        }
         ArrayList<String> mazeCopy = nodeMarkedMaze(unprocessedMaze);
         printMaze(mazeCopy);
         System.out.println("StartNode = " + processedGraph.startNode + " GoalNode = " + processedGraph.goalNode);
-        long startTime1 = System.currentTimeMillis();
-        ArrayList<Integer> path1 = DFS(processedGraph);
+        System.out.println("Components: " + processedGraph.components);
+        //a single run is only a rough guide; MazeBenchmark measures these properly
+        long startTime1 = System.nanoTime();
+        SearchResult dfsResult = dfsSearch(processedGraph);
         long estimatedTime1 = System.nanoTime() - startTime1;
-        printPath("DFS", path1);
-        System.out.println("Time for DFS: " + estimatedTime1);
-        long startTime2 = System.currentTimeMillis();
-        ArrayList<Integer> path2 = BFS(processedGraph);
-        printPath("BFS", path2);
-        long estimatedTime2 = System.nanoTime() - startTime1;
-        System.out.println("Time for BFS: " + estimatedTime2);
+        SearchMetrics.record(mazeFile, "DFS", parseNanos, buildNanos, estimatedTime1, dfsResult);
+        printPath("DFS", dfsResult.path);
+        System.out.println("Time for DFS: " + estimatedTime1 + " ns");
+        long startTime2 = System.nanoTime();
+        SearchResult bfsResult = bfsSearch(processedGraph);
+        long estimatedTime2 = System.nanoTime() - startTime2;
+        SearchMetrics.record(mazeFile, "BFS", parseNanos, buildNanos, estimatedTime2, bfsResult);
+        printPath("BFS", bfsResult.path);
+        System.out.println("Time for BFS: " + estimatedTime2 + " ns");
+        if (bfsResult.path != null) {
+            GridGraph grid = GridGraph.fromMaze(unprocessedMaze);
+            ByteBuffer overlay = new MazeRenderer(grid).render(
+                    MazeRenderer.toGridPath(bfsResult.path, collectOpenSquares(unprocessedMaze)), false);
+            System.out.println(new String(overlay.array(), 0, overlay.limit(), StandardCharsets.US_ASCII));
+        }
+        if (processedGraph.startNodes.length > 1 || processedGraph.goalNodes.length > 1) {
+            MultiSearchResult nearest = multiSourceBFS(processedGraph);
+            System.out.println(processedGraph.startNodes.length + " starts, " + processedGraph.goalNodes.length
+                               + " goals; nearest pair is " + nearest.start + " -> " + nearest.goal);
+            printPath("Multi-source BFS", nearest.path);
+        }
+        SearchResult bidirectional = bidirectionalBFS(processedGraph);
+        printPath("Bidirectional BFS", bidirectional.path);
+        SearchResult aStarResult = aStar(processedGraph);
+        printPath("A*", aStarResult.path);
+        SearchResult jpsResult = JumpPointSearch.search(GridGraph.fromMaze(unprocessedMaze));
+        printPath("JPS", gridPathToNodes(jpsResult.path, collectOpenSquares(unprocessedMaze)));
+        ContractedGraph contracted = ContractedGraph.contract(processedGraph);
+        SearchResult contractedResult = contracted.search();
+        printPath("Contracted Dijkstra", contractedResult.path);
+        SearchResult dialResult = dialDijkstra(mazeToWeightedGraph(unprocessedMaze));
+        printPath("Dial Dijkstra", dialResult.path);
+        System.out.println("Nodes expanded: BFS " + bfsResult.expanded + ", bidirectional BFS " + bidirectional.expanded
+                           + ", A* " + aStarResult.expanded + ", JPS " + jpsResult.expanded
+                           + ", contracted Dijkstra " + contractedResult.expanded);
+        System.out.printf("Corridor contraction: %d nodes -> %d nodes (%.2fx)%n", contracted.getOriginalSize(),
+                          contracted.graph.getSize(), contracted.compressionRatio());
 
     }
 
@@ -344,11 +1031,14 @@ public class MazeGraph {
           }
     }
 
-    public static void main(String args[]) {
+    public static void main(String args[]) throws IOException {
+        //-Dmaze.metrics=summary, csv:<file> or jfr turns on the per-solve metrics
+        SearchMetrics.configure(System.getProperty("maze.metrics"));
         testMaze("Comp221/src/maze1.txt");
         testMaze("Comp221/src/maze2.txt");
         testMaze("Comp221/src/maze3.txt");
         testMaze("Comp221/src/maze4.txt");
+        SearchMetrics.close();
     }
 
   /*
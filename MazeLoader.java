@@ -0,0 +1,170 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+
+
+/**
+ * Loads a maze file straight into the byte-per-square grid of a GridGraph.  The file is memory-mapped
+ * and parsed in a single pass, without building a String per row.  As in readMaze, whitespace at the
+ * start and end of each line is dropped and blank lines at the end of the file are ignored.  Unlike
+ * readMaze, anything wrong with the file is reported: the file cannot be read, a line has a different
+ * width from the first, a blank line sits inside the maze, a character is not one of space, X, S, G
+ * or a terrain digit 1-9, or there is no S or no G.  A maze may have several of each.  Every problem
+ * is an IOException naming the file and line.
+ */
+class MazeLoader {
+    // a mapping can cover at most 2 GB, so bigger files are mapped in pieces of this size
+    private static final long MAP_CHUNK = Integer.MAX_VALUE;
+
+    protected String name;       // the file name, for error messages
+    protected byte[] row;        // the current line, before trimming
+    protected int rowLength;
+    protected byte[] cells;      // the rows accepted so far
+    protected int width = -1;
+    protected int height;
+    protected int lineNumber;
+    protected int blankLine;     // the first blank line seen since the last row, or 0
+
+    protected MazeLoader(String name, long fileSize) {
+        this.name = name;
+        this.row = new byte[256];
+        this.cells = new byte[(int) Math.min(fileSize, 1 << 20)];
+    }
+
+    public static GridGraph load(String filename) throws IOException {
+        return load(Paths.get(filename));
+    }
+
+    /**
+     * Takes in the path of a maze file and returns its grid
+     */
+    public static GridGraph load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            MazeLoader loader = new MazeLoader(file.toString(), size);
+            for (long position = 0; position < size; position += MAP_CHUNK) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                                                      Math.min(MAP_CHUNK, size - position));
+                loader.parse(buffer);
+            }
+            return loader.finish();
+        } catch (NoSuchFileException e) {
+            throw new FileNotFoundException(file + ": no such file");
+        }
+    }
+
+    /**
+     * Takes in the contents of a maze file that is already in memory, such as one sent to
+     * SolverServer, and returns its grid.  The name is only used in error messages.
+     */
+    public static GridGraph parse(String name, byte[] content) throws IOException {
+        MazeLoader loader = new MazeLoader(name, content.length);
+        loader.parse(ByteBuffer.wrap(content));
+        return loader.finish();
+    }
+
+    private void parse(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            byte val = buffer.get();
+            if (val == '\n') {
+                endLine();
+            } else {
+                if (rowLength == row.length) {
+                    row = Arrays.copyOf(row, row.length * 2);
+                }
+                row[rowLength++] = val;
+            }
+        }
+    }
+
+    private void endLine() throws IOException {
+        lineNumber++;
+        int start = 0;
+        int end = rowLength;
+        while (start < end && (row[start] & 0xFF) <= ' ') {
+            start++;
+        }
+        while (end > start && (row[end - 1] & 0xFF) <= ' ') {
+            end--;
+        }
+        rowLength = 0;
+        if (start == end) {
+            if (blankLine == 0) {
+                blankLine = lineNumber;
+            }
+            return;
+        }
+        if (blankLine != 0 && height > 0) {
+            throw error(blankLine, "blank line inside the maze");
+        }
+        blankLine = 0;
+
+        int length = end - start;
+        if (width == -1) {
+            width = length;
+        } else if (length != width) {
+            throw error(lineNumber, "row has " + length + " squares, expected " + width);
+        }
+        long needed = (long) (height + 1) * width;
+        if (needed > Integer.MAX_VALUE - 8) {
+            throw error(lineNumber, "maze has more than " + (Integer.MAX_VALUE - 8) + " squares");
+        }
+        if (needed > cells.length) {
+            cells = Arrays.copyOf(cells, (int) Math.min(Math.max(needed, 2L * cells.length), Integer.MAX_VALUE - 8));
+        }
+        int offset = height * width;
+        for (int i = 0; i < length; i++) {
+            byte val = row[start + i];
+            if (val >= 'a' && val <= 'z') {
+                val -= 'a' - 'A';
+            }
+            if (val != 'X' && !GridGraph.isOpenCell(val)) {
+                throw error(lineNumber, "unexpected character '" + (char) (val & 0xFF) + "' in column " + (i + 1));
+            }
+            cells[offset + i] = val;
+        }
+        height++;
+    }
+
+    private GridGraph finish() throws IOException {
+        if (rowLength > 0) {
+            endLine();
+        }
+        if (height == 0) {
+            throw new IOException(name + ": file contains no maze");
+        }
+        byte[] grid = (cells.length == height * width) ? cells : Arrays.copyOf(cells, height * width);
+        GridGraph result = new GridGraph(grid, width, height);
+        if (result.startNodes.length == 0) {
+            throw new IOException(name + ": maze has no start square (S)");
+        }
+        if (result.goalNodes.length == 0) {
+            throw new IOException(name + ": maze has no goal square (G)");
+        }
+        return result;
+    }
+
+    private IOException error(int line, String message) {
+        return new IOException(name + ":" + line + ": " + message);
+    }
+
+
+
+    public static void main(String[] args) throws IOException {
+        // Loads each file named on the command line and reports its size, or what is wrong with it
+        for (String filename : args) {
+            try {
+                long start = System.nanoTime();
+                GridGraph grid = load(filename);
+                long elapsed = System.nanoTime() - start;
+                System.out.printf("%s: %d x %d, start %d, goal %d, loaded in %.3f ms%n", filename, grid.getHeight(),
+                                  grid.getWidth(), grid.startNode, grid.goalNode, elapsed / 1e6);
+            } catch (IOException e) {
+                System.out.println(e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,239 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+
+/**
+ * Draws a GridGraph as text, with a path drawn over it and, optionally, the node numbers of
+ * nodeMarkedMaze, in one pass straight into a byte buffer that is reused from one drawing to the
+ * next.  Squares on the path are drawn as '.', except the start and goal which keep their letters.
+ * In the node-marked view every other open square shows the ones digit of its node number, and
+ * each row ends with the last node number drawn on it and the start and goal found on it, as in
+ * nodeMarkedMaze.
+ *
+ * A viewport limits the drawing to a window of the maze, for example the squares around a path,
+ * so a huge maze can be looked at without drawing all of it.  Drawing visits only the window's
+ * squares.  The node-marked view also needs, for each row of the window, the number of open squares
+ * before its left edge; these are counted in one pass over the maze up to the window's last row,
+ * and counted again only when the viewport moves or the maze is edited (a DynamicMaze's
+ * modification count changes).
+ *
+ * A renderer keeps its buffer between drawings, so it should not be shared between threads.
+ */
+class MazeRenderer {
+    public static final byte PATH = '.';
+
+    protected GridGraph grid;
+    protected byte[] buf = new byte[4096];
+    protected int length;
+    protected char[] chars;              // buf as chars, for drawing to a Writer
+    protected BitSet onPath;             // the squares of the path being drawn; cleared after each drawing
+    protected int[] openBefore;          // openBefore[i] is the number of open squares before (top + i, left)
+    protected int countedVersion;        // grid.getModCount() when openBefore was counted
+    protected int top;
+    protected int left;
+    protected int rows;
+    protected int cols;
+
+    /**
+     * Constructor takes in the grid to draw.  The viewport starts out as the whole maze.
+     */
+    public MazeRenderer(GridGraph grid) {
+        this.grid = grid;
+        this.onPath = new BitSet(grid.getSize());
+        fullView();
+    }
+
+    /**
+     * Sets the viewport to the whole maze
+     */
+    public MazeRenderer fullView() {
+        return viewport(0, 0, grid.getHeight(), grid.getWidth());
+    }
+
+    /**
+     * Sets the viewport to rows top .. top+rows-1 and columns left .. left+cols-1, clipped to the maze
+     */
+    public MazeRenderer viewport(int top, int left, int rows, int cols) {
+        this.top = Math.max(0, Math.min(top, grid.getHeight()));
+        this.left = Math.max(0, Math.min(left, grid.getWidth()));
+        this.rows = Math.max(0, Math.min(top + rows, grid.getHeight()) - this.top);
+        this.cols = Math.max(0, Math.min(left + cols, grid.getWidth()) - this.left);
+        openBefore = null;
+        return this;
+    }
+
+    /**
+     * Sets the viewport to the smallest window holding the path and its goal, widened by margin
+     * squares on every side
+     */
+    public MazeRenderer viewportAround(ArrayList<Integer> gridPath, int goal, int margin) {
+        int minRow = grid.rowOf(goal);
+        int maxRow = minRow;
+        int minCol = grid.colOf(goal);
+        int maxCol = minCol;
+        if (gridPath != null) {
+            for (int node : gridPath) {
+                minRow = Math.min(minRow, grid.rowOf(node));
+                maxRow = Math.max(maxRow, grid.rowOf(node));
+                minCol = Math.min(minCol, grid.colOf(node));
+                maxCol = Math.max(maxCol, grid.colOf(node));
+            }
+        }
+        return viewport(minRow - margin, minCol - margin, maxRow - minRow + 1 + 2 * margin,
+                        maxCol - minCol + 1 + 2 * margin);
+    }
+
+    /**
+     * Draws the viewport with a path of grid node numbers (in any order, or null for no path) and
+     * returns the text as a buffer that stays valid until the next drawing
+     */
+    public ByteBuffer render(ArrayList<Integer> gridPath, boolean nodeMarked) {
+        length = 0;
+        if (gridPath != null) {
+            for (int node : gridPath) {
+                onPath.set(node);
+            }
+        }
+        if (nodeMarked && (openBefore == null || countedVersion != grid.getModCount())) {
+            countOpenSquares();
+        }
+        int width = grid.getWidth();
+        for (int row = top; row < top + rows; row++) {
+            ensure(cols + 64);
+            int base = row * width;
+            int count = nodeMarked ? openBefore[row - top] : 0;
+            int startFound = -1;
+            int goalFound = -1;
+            for (int col = left; col < left + cols; col++) {
+                byte val = grid.cells[base + col];
+                if (!GridGraph.isOpenCell(val)) {
+                    buf[length++] = val;
+                    continue;
+                }
+                if (val == 'S') {
+                    startFound = count;
+                } else if (val == 'G') {
+                    goalFound = count;
+                } else if (onPath.get(base + col)) {
+                    val = PATH;
+                } else if (nodeMarked) {
+                    val = (byte) ('0' + count % 10);
+                }
+                buf[length++] = val;
+                count++;
+            }
+            if (nodeMarked) {
+                append("     " + (count - 1));
+                if (startFound != -1) {
+                    append("    Start at " + startFound);
+                }
+                if (goalFound != -1) {
+                    append("    Goal at " + goalFound);
+                }
+            }
+            buf[length++] = '\n';
+        }
+        if (gridPath != null) {
+            for (int node : gridPath) {
+                onPath.clear(node);
+            }
+        }
+        return ByteBuffer.wrap(buf, 0, length);
+    }
+
+    /**
+     * Draws the viewport as render does and writes it to a stream
+     */
+    public void render(ArrayList<Integer> gridPath, boolean nodeMarked, OutputStream out) throws IOException {
+        render(gridPath, nodeMarked);
+        out.write(buf, 0, length);
+    }
+
+    /**
+     * Draws the viewport as render does and writes it to a Writer.  Maze text is ASCII, so each
+     * byte is one char; the chars go through a second buffer that is also kept between drawings.
+     */
+    public void render(ArrayList<Integer> gridPath, boolean nodeMarked, Writer out) throws IOException {
+        render(gridPath, nodeMarked);
+        if (chars == null || chars.length < length) {
+            chars = new char[buf.length];
+        }
+        for (int i = 0; i < length; i++) {
+            chars[i] = (char) buf[i];
+        }
+        out.write(chars, 0, length);
+    }
+
+    /**
+     * Takes in a path of node numbers as mazeToGraph gives them and returns the grid node numbers
+     * of the same squares; the inverse of MazeGraph.gridPathToNodes
+     */
+    public static ArrayList<Integer> toGridPath(ArrayList<Integer> nodePath, MazeGraph.ProcessedMaze maze) {
+        if (nodePath == null) {
+            return null;
+        }
+        ArrayList<Integer> gridPath = new ArrayList<Integer>(nodePath.size());
+        for (int node : nodePath) {
+            MazeGraph.Position square = maze.openSquares.get(node);
+            gridPath.add(square.x * maze.width + square.y);
+        }
+        return gridPath;
+    }
+
+    /*
+     * One pass in reading order up to the window's last row, noting the count each time it reaches
+     * the window's left edge
+     */
+    private void countOpenSquares() {
+        int width = grid.getWidth();
+        openBefore = new int[rows];
+        countedVersion = grid.getModCount();
+        int count = 0;
+        for (int row = 0; row < top + rows; row++) {
+            int base = row * width;
+            int split = (row >= top) ? left : width;
+            for (int col = 0; col < split; col++) {
+                if (GridGraph.isOpenCell(grid.cells[base + col])) {
+                    count++;
+                }
+            }
+            if (row >= top) {
+                openBefore[row - top] = count;
+            }
+            for (int col = split; col < width; col++) {
+                if (GridGraph.isOpenCell(grid.cells[base + col])) {
+                    count++;
+                }
+            }
+        }
+    }
+
+    private void append(String text) {
+        ensure(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            buf[length++] = (byte) text.charAt(i);
+        }
+    }
+
+    private void ensure(int extra) {
+        if (length + extra > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, length + extra));
+        }
+    }
+
+
+
+    public static void main(String[] args) throws IOException {
+        // A test example
+        GridGraph grid = GridGraph.fromMaze(MazeGraph.readMaze(args.length > 0 ? args[0] : "maze1.txt"));
+        ArrayList<Integer> path = MazeGraph.BFS(grid, grid.startNode, grid.goalNode);
+        MazeRenderer renderer = new MazeRenderer(grid);
+        renderer.render(path, false, System.out);
+        System.out.println();
+        renderer.render(null, true, System.out);
+        System.out.println();
+        renderer.viewportAround(path, grid.goalNode, 1).render(path, true, System.out);
+        System.out.flush();
+    }
+}
@@ -0,0 +1,321 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.zip.CRC32;
+
+
+/**
+ * A compact binary maze file, and a graph view of one that reads the file in place.
+ *
+ * The file is a 64-byte header followed by one bit per square, row by row, with bit (i % 8) of byte
+ * (i / 8) giving square i; a 1 bit is an open square.  The header holds, as big-endian ints, the
+ * magic number "MZPK", the format version, the width and height, the start row and column, the goal
+ * row and column (-1 when absent), and then the CRC-32 of the bit grid as a long.  The rest of the
+ * header is reserved and written as zeros.  Compared to the text format this is 8 times smaller, and
+ * opening it is just a memory mapping.
+ *
+ * Packing loses two things the text format can hold.  Terrain digits are packed as plain open
+ * squares, so their costs do not survive packing.  The header has room for one start and one goal,
+ * so a maze with several S or G squares keeps only the last of each, in reading order, and the
+ * others come back as plain open squares.
+ *
+ * A PackedMaze is an IntGraph numbered like a GridGraph (row * width + col), so the searches in
+ * MazeGraph run on it directly without the grid ever being copied onto the heap.
+ */
+class PackedMaze implements IntGraph {
+    public static final int MAGIC = 0x4D5A504B;    // "MZPK"
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 64;
+
+    protected ByteBuffer bits;     // the bit grid, starting at index 0
+    protected int width;
+    protected int height;
+    public int startNode;
+    public int goalNode;
+    protected long checksum;       // the CRC-32 recorded in the header
+
+    protected PackedMaze(ByteBuffer bits, int width, int height, int startNode, int goalNode, long checksum) {
+        this.bits = bits;
+        this.width = width;
+        this.height = height;
+        this.startNode = startNode;
+        this.goalNode = goalNode;
+        this.checksum = checksum;
+    }
+
+    /**
+     * Memory-maps a packed maze file without checking its checksum
+     */
+    public static PackedMaze open(Path file) throws IOException {
+        return open(file, false);
+    }
+
+    /**
+     * Memory-maps a packed maze file.  If verify is true the whole grid is read once to check it
+     * against the header's checksum.
+     */
+    public static PackedMaze open(Path file, boolean verify) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException(file + ": too short to be a packed maze");
+            }
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getInt(0) != MAGIC) {
+                throw new IOException(file + ": not a packed maze file");
+            }
+            if (header.getInt(4) != VERSION) {
+                throw new IOException(file + ": unsupported packed maze version " + header.getInt(4));
+            }
+            int width = header.getInt(8);
+            int height = header.getInt(12);
+            long numBytes = ((long) width * height + 7) / 8;
+            if (width < 0 || height < 0 || (long) width * height > Integer.MAX_VALUE - 8
+                    || channel.size() < HEADER_SIZE + numBytes) {
+                throw new IOException(file + ": bad dimensions " + width + " x " + height);
+            }
+            int startNode = nodeFor(header.getInt(16), header.getInt(20), width);
+            int goalNode = nodeFor(header.getInt(24), header.getInt(28), width);
+            long checksum = header.getLong(32);
+
+            MappedByteBuffer bits = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, numBytes);
+            PackedMaze maze = new PackedMaze(bits, width, height, startNode, goalNode, checksum);
+            if (verify && maze.computeChecksum() != checksum) {
+                throw new IOException(file + ": checksum mismatch, the file is damaged");
+            }
+            return maze;
+        }
+    }
+
+    private static int nodeFor(int row, int col, int width) {
+        return (row < 0 || col < 0) ? -1 : row * width + col;
+    }
+
+    /**
+     * Returns the CRC-32 of the bit grid as it is now
+     */
+    public long computeChecksum() {
+        CRC32 crc = new CRC32();
+        crc.update(bits.duplicate().clear());
+        return crc.getValue();
+    }
+
+    public int getSize() {
+        return width * height;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Takes in a node number and checks to see if that square is open
+     */
+    public boolean isOpen(int node) {
+        return (0 <= node) && (node < width * height) && (bits.get(node >>> 3) & (1 << (node & 7))) != 0;
+    }
+
+    public int maxDegree() {
+        return 4;
+    }
+
+    /**
+     * Copies the open squares above, below, left and right of the node, in that order, as GridGraph does
+     */
+    public int copyNeighbors(int node, int[] buf) {
+        if (!isOpen(node)) {
+            return 0;
+        }
+        int row = node / width;
+        int col = node - row * width;
+        int count = 0;
+        if (row > 0 && isOpen(node - width)) {
+            buf[count++] = node - width;
+        }
+        if (row < height - 1 && isOpen(node + width)) {
+            buf[count++] = node + width;
+        }
+        if (col > 0 && isOpen(node - 1)) {
+            buf[count++] = node - 1;
+        }
+        if (col < width - 1 && isOpen(node + 1)) {
+            buf[count++] = node + 1;
+        }
+        return count;
+    }
+
+    /**
+     * Copies the maze onto the heap as a GridGraph
+     */
+    public GridGraph toGridGraph() {
+        byte[] cells = new byte[width * height];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = (byte) squareChar(i);
+        }
+        return new GridGraph(cells, width, height);
+    }
+
+    private char squareChar(int node) {
+        if (node == startNode) {
+            return 'S';
+        } else if (node == goalNode) {
+            return 'G';
+        }
+        return isOpen(node) ? ' ' : 'X';
+    }
+
+    /**
+     * Writes the maze in the text format readMaze reads, one row per line
+     */
+    public void writeText(java.io.Writer out) throws IOException {
+        char[] line = new char[width];
+        for (int row = 0; row < height; row++) {
+            for (int col = 0; col < width; col++) {
+                line[col] = squareChar(row * width + col);
+            }
+            out.write(line);
+            out.write('\n');
+        }
+        out.flush();
+    }
+
+    /**
+     * Writes a packed maze file a row at a time, so a maze never has to be held in memory to be
+     * saved.  Rows are given as maze characters; every open character becomes a 1 bit, and the
+     * positions of the S and G squares go in the header; if there are several, the last of each
+     * wins.  The header is filled in on close.
+     */
+    static class Writer implements Closeable {
+        private FileChannel channel;
+        private ByteBuffer buffer;
+        private CRC32 crc;
+        private int width;
+        private int height;
+        private int rowsWritten;
+        private int pending;        // bits not yet written out, lowest first
+        private int pendingCount;
+        private int startRow = -1, startCol = -1, goalRow = -1, goalCol = -1;
+
+        public Writer(Path file, int width, int height) throws IOException {
+            this.width = width;
+            this.height = height;
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                       StandardOpenOption.TRUNCATE_EXISTING);
+            channel.position(HEADER_SIZE);
+            buffer = ByteBuffer.allocate(1 << 16);
+            crc = new CRC32();
+        }
+
+        /**
+         * Adds the next row of the maze, given as width maze characters
+         */
+        public void writeRow(byte[] row) throws IOException {
+            if (rowsWritten == height) {
+                throw new IOException("maze already has " + height + " rows");
+            }
+            for (int col = 0; col < width; col++) {
+                byte val = row[col];
+                if (val == 'S') {
+                    startRow = rowsWritten;
+                    startCol = col;
+                } else if (val == 'G') {
+                    goalRow = rowsWritten;
+                    goalCol = col;
+                }
+                if (GridGraph.isOpenCell(val)) {
+                    pending |= 1 << pendingCount;
+                }
+                if (++pendingCount == 8) {
+                    putByte();
+                }
+            }
+            rowsWritten++;
+        }
+
+        private void putByte() throws IOException {
+            if (!buffer.hasRemaining()) {
+                flushBuffer();
+            }
+            buffer.put((byte) pending);
+            pending = 0;
+            pendingCount = 0;
+        }
+
+        private void flushBuffer() throws IOException {
+            buffer.flip();
+            crc.update(buffer.duplicate());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        public void close() throws IOException {
+            try {
+                if (rowsWritten != height) {
+                    throw new IOException("maze has " + rowsWritten + " rows, expected " + height);
+                }
+                if (pendingCount > 0) {
+                    putByte();
+                }
+                flushBuffer();
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.putInt(MAGIC).putInt(VERSION).putInt(width).putInt(height);
+                header.putInt(startRow).putInt(startCol).putInt(goalRow).putInt(goalCol);
+                header.putLong(crc.getValue());
+                header.clear();
+                channel.position(0);
+                while (header.hasRemaining()) {
+                    channel.write(header);
+                }
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Writes a GridGraph to a packed maze file, keeping only its last start and goal
+     */
+    public static void pack(GridGraph grid, Path file) throws IOException {
+        int width = grid.getWidth();
+        try (Writer out = new Writer(file, width, grid.getHeight())) {
+            byte[] row = new byte[width];
+            for (int r = 0; r < grid.getHeight(); r++) {
+                System.arraycopy(grid.cells, r * width, row, 0, width);
+                out.writeRow(row);
+            }
+        }
+    }
+
+
+
+    public static void main(String[] args) throws IOException {
+        // Converts between the two formats:
+        //     java PackedMaze pack maze.txt maze.mzp
+        //     java PackedMaze unpack maze.mzp maze.txt
+        if (args.length == 3 && args[0].equals("pack")) {
+            GridGraph grid = MazeLoader.load(args[1]);
+            if (grid.startNodes.length > 1 || grid.goalNodes.length > 1) {
+                System.err.println(args[1] + ": " + grid.startNodes.length + " starts and " + grid.goalNodes.length
+                                   + " goals; only the last of each is packed");
+            }
+            pack(grid, Paths.get(args[2]));
+        } else if (args.length == 3 && args[0].equals("unpack")) {
+            PackedMaze maze = open(Paths.get(args[1]), true);
+            try (java.io.Writer out = Files.newBufferedWriter(Paths.get(args[2]))) {
+                maze.writeText(out);
+            }
+        } else {
+            System.err.println("Usage: java PackedMaze pack <maze.txt> <maze.mzp>");
+            System.err.println("       java PackedMaze unpack <maze.mzp> <maze.txt>");
+            System.err.println("Packing keeps one start and one goal, and turns terrain digits into open squares.");
+            System.exit(2);
+        }
+    }
+}
@@ -0,0 +1,304 @@
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * A level-synchronous breadth-first search that spreads each level over a ForkJoinPool.  Levels are
+ * expanded top-down (each frontier node claims its unvisited neighbors in a shared atomic bitset)
+ * while the frontier is small, and bottom-up (each unvisited node looks for a neighbor in the
+ * frontier) once the frontier's edges outnumber a fraction of the unexplored ones, switching back
+ * when the frontier shrinks again, as in Beamer's direction-optimizing BFS.
+ *
+ * The output does not depend on the number of threads or on scheduling: distances are exact, and
+ * the parent of every node is its first neighbor, in the graph's neighbor order, on the level above.
+ */
+class ParallelBFS {
+    private static final int ALPHA = 14;       // go bottom-up when frontier edges > unexplored edges / ALPHA
+    private static final int BETA = 24;        // go back top-down when frontier nodes < all nodes / BETA
+    private static final int CHUNK = 2048;     // the most nodes one fork-join task handles itself
+
+    protected IntGraph graph;
+    protected int[] dist;                      // dist[v] is v's level, or -1 if it was not reached
+    protected int[] parent;                    // parent[v] is the node v was reached from, -1 for the source
+    protected AtomicLongArray visited;         // one bit per node, set once the node has a level
+    protected int topDownLevels;
+    protected int bottomUpLevels;
+
+    protected ParallelBFS(IntGraph graph) {
+        this.graph = graph;
+        int n = graph.getSize();
+        dist = new int[n];
+        parent = new int[n];
+        Arrays.fill(dist, -1);
+        Arrays.fill(parent, -1);
+        visited = new AtomicLongArray((n + 63) >>> 6);
+    }
+
+    /**
+     * Runs a full search from source on the given pool
+     */
+    public static ParallelBFS search(IntGraph graph, int source, ForkJoinPool pool) {
+        return search(graph, source, -1, pool);
+    }
+
+    /**
+     * Runs a search from source on the given pool, stopping after the level on which goal is found.
+     * Pass -1 as the goal to search the whole component.
+     */
+    public static ParallelBFS search(IntGraph graph, int source, int goal, ForkJoinPool pool) {
+        ParallelBFS bfs = new ParallelBFS(graph);
+        pool.invoke(ForkJoinTask.adapt(() -> bfs.run(source, goal)));
+        return bfs;
+    }
+
+    private void run(int source, int goal) {
+        int n = graph.getSize();
+        long unexploredEdges = new DegreeSum(0, n).invoke();
+
+        int[] frontier = {source};
+        dist[source] = 0;
+        setVisited(source);
+        boolean bottomUp = false;
+        for (int level = 0; frontier.length > 0 && (goal == -1 || dist[goal] == -1); level++) {
+            long frontierEdges = new DegreeSum(frontier).invoke();
+            unexploredEdges -= frontierEdges;
+            if (!bottomUp && frontierEdges > unexploredEdges / ALPHA) {
+                bottomUp = true;
+            } else if (bottomUp && frontier.length < n / BETA) {
+                bottomUp = false;
+            }
+
+            if (bottomUp) {
+                frontier = new BottomUpStep(level, 0, n).invoke();
+                bottomUpLevels++;
+            } else {
+                frontier = new TopDownStep(frontier, 0, frontier.length).invoke();
+                // sorting makes the frontier order, and so the next level, independent of scheduling
+                Arrays.parallelSort(frontier);
+                new AssignParents(frontier, level, 0, frontier.length).invoke();
+                topDownLevels++;
+            }
+        }
+    }
+
+    private boolean setVisited(int node) {
+        long mask = 1L << node;
+        int word = node >>> 6;
+        while (true) {
+            long old = visited.get(word);
+            if ((old & mask) != 0) {
+                return false;
+            }
+            if (visited.compareAndSet(word, old, old | mask)) {
+                return true;
+            }
+        }
+    }
+
+    private boolean isVisited(int node) {
+        return (visited.get(node >>> 6) & (1L << node)) != 0;
+    }
+
+    /*
+     * Top-down: every frontier node claims its unvisited neighbors. Returns the claimed nodes.
+     */
+    private class TopDownStep extends RecursiveTask<int[]> {
+        private final int[] frontier;
+        private final int lo, hi;
+
+        TopDownStep(int[] frontier, int lo, int hi) {
+            this.frontier = frontier;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        protected int[] compute() {
+            if (hi - lo > CHUNK) {
+                int mid = (lo + hi) >>> 1;
+                TopDownStep left = new TopDownStep(frontier, lo, mid);
+                left.fork();
+                int[] right = new TopDownStep(frontier, mid, hi).compute();
+                return concat(left.join(), right);
+            }
+            int[] neighbors = new int[graph.maxDegree()];
+            int[] found = new int[16];
+            int count = 0;
+            for (int i = lo; i < hi; i++) {
+                int numNeighbors = graph.copyNeighbors(frontier[i], neighbors);
+                for (int j = 0; j < numNeighbors; j++) {
+                    int u = neighbors[j];
+                    if (!isVisited(u) && setVisited(u)) {
+                        if (count == found.length) {
+                            found = Arrays.copyOf(found, count * 2);
+                        }
+                        found[count++] = u;
+                    }
+                }
+            }
+            return Arrays.copyOf(found, count);
+        }
+    }
+
+    /*
+     * After a top-down step: gives every new node its level and its first neighbor on the level above
+     * as its parent, whichever frontier node happened to claim it.
+     */
+    private class AssignParents extends RecursiveAction {
+        private final int[] next;
+        private final int level;
+        private final int lo, hi;
+
+        AssignParents(int[] next, int level, int lo, int hi) {
+            this.next = next;
+            this.level = level;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        protected void compute() {
+            if (hi - lo > CHUNK) {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new AssignParents(next, level, lo, mid), new AssignParents(next, level, mid, hi));
+                return;
+            }
+            int[] neighbors = new int[graph.maxDegree()];
+            for (int i = lo; i < hi; i++) {
+                int v = next[i];
+                int numNeighbors = graph.copyNeighbors(v, neighbors);
+                for (int j = 0; j < numNeighbors; j++) {
+                    if (dist[neighbors[j]] == level) {
+                        parent[v] = neighbors[j];
+                        break;
+                    }
+                }
+            }
+            for (int i = lo; i < hi; i++) {
+                dist[next[i]] = level + 1;
+            }
+        }
+    }
+
+    /*
+     * Bottom-up: every unvisited node in [lo, hi) looks for a neighbor on the current level. Returns
+     * the nodes that found one, in increasing order.
+     */
+    private class BottomUpStep extends RecursiveTask<int[]> {
+        private final int level;
+        private final int lo, hi;
+
+        BottomUpStep(int level, int lo, int hi) {
+            this.level = level;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        protected int[] compute() {
+            if (hi - lo > CHUNK) {
+                int mid = (lo + hi) >>> 1;
+                BottomUpStep left = new BottomUpStep(level, lo, mid);
+                left.fork();
+                int[] right = new BottomUpStep(level, mid, hi).compute();
+                return concat(left.join(), right);
+            }
+            int[] neighbors = new int[graph.maxDegree()];
+            int[] found = new int[16];
+            int count = 0;
+            for (int v = lo; v < hi; v++) {
+                if (dist[v] != -1) {
+                    continue;
+                }
+                int numNeighbors = graph.copyNeighbors(v, neighbors);
+                for (int j = 0; j < numNeighbors; j++) {
+                    // nodes found on this step get level + 1, so they never match here
+                    if (dist[neighbors[j]] == level) {
+                        parent[v] = neighbors[j];
+                        dist[v] = level + 1;
+                        setVisited(v);
+                        if (count == found.length) {
+                            found = Arrays.copyOf(found, count * 2);
+                        }
+                        found[count++] = v;
+                        break;
+                    }
+                }
+            }
+            return Arrays.copyOf(found, count);
+        }
+    }
+
+    /*
+     * Adds up the number of neighbors of a set of nodes: either the nodes in an array, or all the
+     * nodes in [lo, hi) when the array is null.
+     */
+    private class DegreeSum extends RecursiveTask<Long> {
+        private final int[] nodes;
+        private final int lo, hi;
+
+        DegreeSum(int lo, int hi) {
+            this(null, lo, hi);
+        }
+
+        DegreeSum(int[] nodes) {
+            this(nodes, 0, nodes.length);
+        }
+
+        private DegreeSum(int[] nodes, int lo, int hi) {
+            this.nodes = nodes;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        protected Long compute() {
+            if (hi - lo > CHUNK) {
+                int mid = (lo + hi) >>> 1;
+                DegreeSum left = new DegreeSum(nodes, lo, mid);
+                left.fork();
+                long right = new DegreeSum(nodes, mid, hi).compute();
+                return left.join() + right;
+            }
+            int[] neighbors = new int[graph.maxDegree()];
+            long sum = 0;
+            for (int i = lo; i < hi; i++) {
+                sum += graph.copyNeighbors((nodes == null) ? i : nodes[i], neighbors);
+            }
+            return sum;
+        }
+    }
+
+    private static int[] concat(int[] a, int[] b) {
+        int[] both = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, both, a.length, b.length);
+        return both;
+    }
+
+    public int[] getDistances() {
+        return dist;
+    }
+
+    public int[] getParents() {
+        return parent;
+    }
+
+    public int getTopDownLevels() {
+        return topDownLevels;
+    }
+
+    public int getBottomUpLevels() {
+        return bottomUpLevels;
+    }
+
+    /**
+     * Returns the path to goal in the same form as MazeGraph.BFS, or null if goal was not reached
+     */
+    public ArrayList<Integer> path(int goal) {
+        if (goal < 0 || goal >= dist.length || dist[goal] == -1) {
+            return null;
+        }
+        ArrayList<Integer> path = new ArrayList<Integer>();
+        for (int current = parent[goal]; current != -1; current = parent[current]) {
+            path.add(current);
+        }
+        return path;
+    }
+}
@@ -0,0 +1,178 @@
+import java.util.*;
+
+
+/**
+ * Answers many start/goal path queries on one maze.  For every start that is asked about, a complete
+ * breadth-first search tree is built once and stored as an int[] of parents; after that, any path
+ * from that start (or, since maze graphs are undirected, to it) is read off the tree in time
+ * proportional to its length.  Trees are evicted least recently used first once they take up more
+ * than the memory budget.
+ */
+class PathQueryCache {
+    private static final int UNREACHED = -2;
+
+    protected IntGraph graph;
+    protected long maxBytes;           // the most memory the cached trees may use
+    protected long usedBytes;          // the memory the cached trees use now
+    protected LinkedHashMap<Integer, int[]> trees;
+    protected long hits;
+    protected long misses;
+    protected long evictions;
+
+    /**
+     * Constructor takes in an undirected graph and the number of bytes the cached trees may use.
+     * At least one tree is always kept, however small the budget.
+     */
+    public PathQueryCache(IntGraph graph, long maxBytes) {
+        this.graph = graph;
+        this.maxBytes = maxBytes;
+        // access order, so that iteration starts at the least recently used tree
+        this.trees = new LinkedHashMap<Integer, int[]>(16, 0.75f, true);
+    }
+
+    /**
+     * Takes in the maze represented as a list of strings, as returned by readMaze, and builds the
+     * graph to query.  Node numbers are the ones mazeToGraph gives.
+     */
+    public PathQueryCache(ArrayList<String> mazelist, long maxBytes) {
+        this(MazeGraph.mazeToCsrGraph(mazelist).graph, maxBytes);
+    }
+
+    /**
+     * Returns a shortest path from start to goal in the same form as MazeGraph.BFS: from the node
+     * before the goal back to the start, empty if start and goal are the same node, and null if
+     * there is no path.
+     */
+    public synchronized ArrayList<Integer> path(int start, int goal) {
+        int n = graph.getSize();
+        if (start < 0 || start >= n || goal < 0 || goal >= n) {
+            return null;
+        }
+        int[] parent = trees.get(start);
+        if (parent != null) {
+            hits++;
+            return pathFromRoot(parent, goal);
+        }
+        parent = trees.get(goal);
+        if (parent != null) {
+            hits++;
+            return pathToRoot(parent, start);
+        }
+        misses++;
+        parent = buildTree(start);
+        store(start, parent);
+        return pathFromRoot(parent, goal);
+    }
+
+    //Reads the path from the root of the tree to goal, in findPath form
+    private static ArrayList<Integer> pathFromRoot(int[] parent, int goal) {
+        if (parent[goal] == UNREACHED) {
+            return null;
+        }
+        ArrayList<Integer> path = new ArrayList<Integer>();
+        for (int current = parent[goal]; current != -1; current = parent[current]) {
+            path.add(current);
+        }
+        return path;
+    }
+
+    //Reads the path from start to the root of the tree, in findPath form with the root as the goal
+    private static ArrayList<Integer> pathToRoot(int[] parent, int start) {
+        if (parent[start] == UNREACHED) {
+            return null;
+        }
+        ArrayList<Integer> path = new ArrayList<Integer>();
+        for (int current = start; parent[current] != -1; current = parent[current]) {
+            path.add(current);
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    //A full breadth-first search from root, without stopping early
+    private int[] buildTree(int root) {
+        int n = graph.getSize();
+        int[] parent = new int[n];
+        Arrays.fill(parent, UNREACHED);
+        int[] q = new int[n];
+        int head = 0;
+        int tail = 0;
+        int[] neighbors = new int[graph.maxDegree()];
+
+        parent[root] = -1;
+        q[tail++] = root;
+        while (head < tail) {
+            int v = q[head++];
+            int numNeighbors = graph.copyNeighbors(v, neighbors);
+            for (int i = 0; i < numNeighbors; i++) {
+                int u = neighbors[i];
+                if (parent[u] == UNREACHED) {
+                    parent[u] = v;
+                    q[tail++] = u;
+                }
+            }
+        }
+        return parent;
+    }
+
+    private void store(int root, int[] parent) {
+        long treeBytes = bytesFor(parent);
+        Iterator<Map.Entry<Integer, int[]>> eldest = trees.entrySet().iterator();
+        while (usedBytes + treeBytes > maxBytes && eldest.hasNext()) {
+            usedBytes -= bytesFor(eldest.next().getValue());
+            eldest.remove();
+            evictions++;
+        }
+        trees.put(root, parent);
+        usedBytes += treeBytes;
+    }
+
+    //An int[] costs four bytes per entry plus its header
+    private static long bytesFor(int[] parent) {
+        return 16L + 4L * parent.length;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized int getCachedTrees() {
+        return trees.size();
+    }
+
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    public synchronized String toString() {
+        return "PathQueryCache: " + trees.size() + " trees, " + usedBytes + " of " + maxBytes + " bytes, "
+                + hits + " hits, " + misses + " misses, " + evictions + " evictions";
+    }
+
+
+
+    public static void main(String[] args) {
+        // A test example: every query against a graph of ten nodes in a row
+        ListGraph line = new ListGraph(10);
+        for (int i = 0; i + 1 < 10; i++) {
+            line.addEdge(i, i + 1);
+        }
+        // room for two trees only
+        PathQueryCache cache = new PathQueryCache(line, 2 * (16 + 4 * 10));
+        MazeGraph.printPath("0 to 9", cache.path(0, 9));
+        MazeGraph.printPath("9 to 0", cache.path(9, 0));
+        MazeGraph.printPath("0 to 5", cache.path(0, 5));
+        MazeGraph.printPath("3 to 7", cache.path(3, 7));
+        MazeGraph.printPath("4 to 2", cache.path(4, 2));
+        MazeGraph.printPath("0 to 3", cache.path(0, 3));
+        System.out.println(cache);
+    }
+}
@@ -0,0 +1,275 @@
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.LongConsumer;
+
+
+/**
+ * Decides whether the goal can be reached from the start in a maze file too large to load, by
+ * reading it one row at a time.  Only two rows' worth of state is ever kept: for each column of the
+ * previous row, the label of the connected component its open run belongs to.  The open runs of each
+ * new row are merged with the components above them through a small union-find; a component that
+ * has no run in the new row can never grow again, so it is closed and its size reported.  Memory is
+ * proportional to the maze's width and does not depend on the number of rows.
+ *
+ * Lines are trimmed as readMaze trims them.  If the maze has several S or G squares, the goal counts
+ * as reachable when any S is connected to any G.
+ */
+class ScanlineReachability {
+    private static final byte HAS_START = 1;
+    private static final byte HAS_GOAL = 2;
+
+    /**
+     * What a scan found out about the maze
+     */
+    static class Result {
+        public boolean foundStart;
+        public boolean foundGoal;
+        public boolean reachable;
+        public long components;
+        public long largestComponent;
+        public long startComponentSize;
+        public long goalComponentSize;
+        public long openSquares;
+        public long rows;
+        public int width;
+
+        public String toString() {
+            return (reachable ? "goal reachable" : "goal NOT reachable") + "; " + rows + " rows, width " + width
+                    + ", " + openSquares + " open squares in " + components + " components"
+                    + ", largest " + largestComponent + ", start component " + startComponentSize
+                    + ", goal component " + goalComponentSize;
+        }
+    }
+
+    protected Result result = new Result();
+    protected LongConsumer componentSizes;  // told the size of every component as it is closed, or null
+
+    protected int numPrev;                  // components with a run in the previous row, labelled 0 .. numPrev-1
+    protected int[] prevLabel = new int[0]; // per column of the previous row: component label, or -1
+    protected int[] curLabel = new int[0];
+    protected long[] prevSize = new long[0];
+    protected byte[] prevFlags = new byte[0];
+
+    // the union-find over previous components (0 .. numPrev-1) and the current row's runs after them
+    protected int[] parent = new int[0];
+    protected long[] size = new long[0];
+    protected byte[] flags = new byte[0];
+    protected boolean[] hasRun = new boolean[0];
+    protected int[] newLabel = new int[0];
+    protected int[] runStart = new int[0];
+    protected int[] runEnd = new int[0];
+
+    public static Result scan(Path file) throws IOException {
+        return scan(file, null);
+    }
+
+    /**
+     * Scans a maze file, passing the size of every connected component to componentSizes (if it is
+     * not null) as soon as the component is complete
+     */
+    public static Result scan(Path file, LongConsumer componentSizes) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return scan(in, componentSizes);
+        }
+    }
+
+    public static Result scan(InputStream in, LongConsumer componentSizes) throws IOException {
+        ScanlineReachability scanner = new ScanlineReachability();
+        scanner.componentSizes = componentSizes;
+        BufferedInputStream input = new BufferedInputStream(in, 1 << 16);
+        byte[] line = new byte[256];
+        int length = 0;
+        int val;
+        while ((val = input.read()) != -1) {
+            if (val == '\n') {
+                scanner.addRow(line, length);
+                length = 0;
+            } else {
+                if (length == line.length) {
+                    line = Arrays.copyOf(line, length * 2);
+                }
+                line[length++] = (byte) val;
+            }
+        }
+        if (length > 0) {
+            scanner.addRow(line, length);
+        }
+        scanner.closeAll();
+        return scanner.result;
+    }
+
+    private void addRow(byte[] line, int length) {
+        int start = 0;
+        int end = length;
+        while (start < end && (line[start] & 0xFF) <= ' ') {
+            start++;
+        }
+        while (end > start && (line[end - 1] & 0xFF) <= ' ') {
+            end--;
+        }
+        int width = end - start;
+        ensureWidth(width);
+        result.rows++;
+        result.width = Math.max(result.width, width);
+
+        // find the open runs of this row
+        int numRuns = 0;
+        for (int col = 0; col < width; col++) {
+            if (isOpen(line[start + col])) {
+                if (col == 0 || !isOpen(line[start + col - 1])) {
+                    runStart[numRuns] = col;
+                    numRuns++;
+                }
+                runEnd[numRuns - 1] = col;
+            }
+        }
+
+        int numNodes = numPrev + numRuns;
+        for (int k = 0; k < numPrev; k++) {
+            parent[k] = k;
+            size[k] = prevSize[k];
+            flags[k] = prevFlags[k];
+            hasRun[k] = false;
+        }
+        for (int j = 0; j < numRuns; j++) {
+            int node = numPrev + j;
+            parent[node] = node;
+            size[node] = runEnd[j] - runStart[j] + 1;
+            flags[node] = 0;
+            hasRun[node] = true;
+            for (int col = runStart[j]; col <= runEnd[j]; col++) {
+                byte square = line[start + col];
+                if (square == 'S' || square == 's') {
+                    flags[node] |= HAS_START;
+                    result.foundStart = true;
+                } else if (square == 'G' || square == 'g') {
+                    flags[node] |= HAS_GOAL;
+                    result.foundGoal = true;
+                }
+            }
+            result.openSquares += size[node];
+        }
+
+        // join each run to the components directly above it
+        for (int j = 0; j < numRuns; j++) {
+            int last = -1;
+            for (int col = runStart[j]; col <= runEnd[j]; col++) {
+                int above = prevLabel[col];
+                if (above != -1 && above != last) {
+                    union(numPrev + j, above);
+                    last = above;
+                }
+            }
+        }
+
+        // components with no run in this row are complete; a previous component can only have been
+        // joined to another through a run, so a component without one is still on its own
+        for (int k = 0; k < numPrev; k++) {
+            if (!hasRun[find(k)]) {
+                close(size[k], flags[k]);
+            }
+        }
+
+        // give the surviving components compact labels for the next row
+        Arrays.fill(newLabel, 0, numNodes, -1);
+        Arrays.fill(curLabel, -1);
+        int next = 0;
+        for (int j = 0; j < numRuns; j++) {
+            int root = find(numPrev + j);
+            if (newLabel[root] == -1) {
+                newLabel[root] = next;
+                prevSize[next] = size[root];
+                prevFlags[next] = flags[root];
+                if (flags[root] == (HAS_START | HAS_GOAL)) {
+                    result.reachable = true;
+                }
+                next++;
+            }
+            for (int col = runStart[j]; col <= runEnd[j]; col++) {
+                curLabel[col] = newLabel[root];
+            }
+        }
+        numPrev = next;
+        int[] swap = prevLabel;
+        prevLabel = curLabel;
+        curLabel = swap;
+    }
+
+    private void closeAll() {
+        for (int k = 0; k < numPrev; k++) {
+            close(prevSize[k], prevFlags[k]);
+        }
+        numPrev = 0;
+    }
+
+    private void close(long componentSize, byte componentFlags) {
+        result.components++;
+        result.largestComponent = Math.max(result.largestComponent, componentSize);
+        if ((componentFlags & HAS_START) != 0) {
+            result.startComponentSize = componentSize;
+        }
+        if ((componentFlags & HAS_GOAL) != 0) {
+            result.goalComponentSize = componentSize;
+        }
+        if (componentSizes != null) {
+            componentSizes.accept(componentSize);
+        }
+    }
+
+    private int find(int node) {
+        while (parent[node] != node) {
+            parent[node] = parent[parent[node]];
+            node = parent[node];
+        }
+        return node;
+    }
+
+    private void union(int a, int b) {
+        int rootA = find(a);
+        int rootB = find(b);
+        if (rootA != rootB) {
+            parent[rootB] = rootA;
+            size[rootA] += size[rootB];
+            flags[rootA] |= flags[rootB];
+            hasRun[rootA] |= hasRun[rootB];
+        }
+    }
+
+    private static boolean isOpen(byte val) {
+        if (val >= 'a' && val <= 'z') {
+            val -= 'a' - 'A';
+        }
+        return GridGraph.isOpenCell(val);
+    }
+
+    //Grows the per-column and per-run arrays when a row wider than any before it comes along
+    private void ensureWidth(int width) {
+        if (width <= prevLabel.length) {
+            return;
+        }
+        int oldWidth = prevLabel.length;
+        prevLabel = Arrays.copyOf(prevLabel, width);
+        Arrays.fill(prevLabel, oldWidth, width, -1);
+        curLabel = new int[width];
+        int maxRuns = (width + 1) / 2 + 1;
+        prevSize = Arrays.copyOf(prevSize, maxRuns);
+        prevFlags = Arrays.copyOf(prevFlags, maxRuns);
+        runStart = new int[maxRuns];
+        runEnd = new int[maxRuns];
+        parent = new int[2 * maxRuns];
+        size = new long[2 * maxRuns];
+        flags = new byte[2 * maxRuns];
+        hasRun = new boolean[2 * maxRuns];
+        newLabel = new int[2 * maxRuns];
+    }
+
+
+
+    public static void main(String[] args) throws IOException {
+        // Scans each file named on the command line
+        for (String filename : args) {
+            System.out.println(filename + ": " + scan(Paths.get(filename)));
+        }
+    }
+}
@@ -0,0 +1,8 @@
+/**
+ * Called by SearchMetrics once for every instrumented solve.  Listeners may be called from several
+ * threads at once (BatchSolver solves on a pool), so an implementation that keeps state must guard it.
+ */
+interface SearchListener {
+
+    void solveFinished(SolveMetrics metrics);
+}
@@ -0,0 +1,244 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import jdk.jfr.*;
+
+
+/**
+ * The switch for per-solve metrics.  Solvers call record() after each search; with no listener
+ * registered that is one volatile read and a null check, and no SolveMetrics is built, so the calls
+ * can stay in production code.  Registering a listener turns the metrics on for the whole JVM.
+ *
+ * Three listeners come with it: a CsvExporter that writes one line per solve, a Summary that totals
+ * the solves of each algorithm and prints them as a table, and a JfrListener that commits a
+ * maze.Solve event per solve to a Flight Recorder recording.  configure() sets them up from a string
+ * such as "summary,csv:metrics.csv,jfr", which is how the mains take -Dmaze.metrics.
+ */
+class SearchMetrics {
+    private static final List<SearchListener> listeners = new CopyOnWriteArrayList<SearchListener>();
+    // null when there are no listeners; otherwise the only listener, or one that calls them all
+    private static volatile SearchListener listener;
+
+    public static boolean isEnabled() {
+        return listener != null;
+    }
+
+    public static synchronized void addListener(SearchListener added) {
+        listeners.add(added);
+        update();
+    }
+
+    public static synchronized void removeListener(SearchListener removed) {
+        listeners.remove(removed);
+        update();
+    }
+
+    private static void update() {
+        if (listeners.isEmpty()) {
+            listener = null;
+        } else if (listeners.size() == 1) {
+            listener = listeners.get(0);
+        } else {
+            listener = metrics -> {
+                for (SearchListener each : listeners) {
+                    each.solveFinished(metrics);
+                }
+            };
+        }
+    }
+
+    /**
+     * Takes in the maze and algorithm names, the parse, build and search times of one solve and the
+     * result of its search, and passes their metrics to the listeners, if there are any
+     */
+    public static void record(String maze, String algorithm, long parseNanos, long buildNanos,
+                              long searchNanos, MazeGraph.SearchResult result) {
+        SearchListener current = listener;
+        if (current != null) {
+            current.solveFinished(SolveMetrics.of(maze, algorithm, parseNanos, buildNanos, searchNanos, result));
+        }
+    }
+
+    /**
+     * Takes in a comma-separated list of exporters (summary, csv:<file>, jfr) and registers one
+     * listener for each.  A null or empty spec leaves the metrics off.
+     */
+    public static void configure(String spec) throws IOException {
+        if (spec == null || spec.trim().isEmpty()) {
+            return;
+        }
+        for (String part : spec.split(",")) {
+            part = part.trim();
+            if (part.equals("summary")) {
+                addListener(new Summary(System.out));
+            } else if (part.startsWith("csv:")) {
+                Path file = Paths.get(part.substring(4));
+                addListener(new CsvExporter(Files.newBufferedWriter(file, StandardCharsets.UTF_8)));
+            } else if (part.equals("jfr")) {
+                addListener(new JfrListener());
+            } else {
+                throw new IllegalArgumentException("unknown metrics exporter: " + part);
+            }
+        }
+    }
+
+    /**
+     * Removes every listener, closing the ones that hold a file or print a report at the end
+     */
+    public static synchronized void close() throws IOException {
+        List<SearchListener> removed = new ArrayList<SearchListener>(listeners);
+        listeners.clear();
+        update();
+        for (SearchListener each : removed) {
+            if (each instanceof Closeable) {
+                ((Closeable) each).close();
+            }
+        }
+    }
+
+    /**
+     * Writes a header and then one CSV line per solve, in the order the solves finish
+     */
+    static class CsvExporter implements SearchListener, Closeable {
+        public static final String HEADER = "maze,algorithm,parseNanos,buildNanos,searchNanos,"
+                                            + "nodesExpanded,edgesScanned,peakFrontier,pathLength";
+        protected Writer out;
+
+        public CsvExporter(Writer out) throws IOException {
+            this.out = out;
+            out.write(HEADER);
+            out.write('\n');
+        }
+
+        @Override
+        public synchronized void solveFinished(SolveMetrics m) {
+            try {
+                out.write(csv(m.maze) + "," + csv(m.algorithm) + "," + m.parseNanos + "," + m.buildNanos + ","
+                          + m.searchNanos + "," + m.nodesExpanded + "," + m.edgesScanned + ","
+                          + m.peakFrontier + "," + m.pathLength + "\n");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private static String csv(String value) {
+            if (value.indexOf(',') == -1 && value.indexOf('"') == -1) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            out.close();
+        }
+    }
+
+    /**
+     * Totals the solves of each algorithm and, when closed, prints a plain-text table of the number
+     * of solves, the mean time of each phase, the mean counters and the largest frontier
+     */
+    static class Summary implements SearchListener, Closeable {
+        protected PrintStream out;
+        protected Map<String, long[]> totals = new TreeMap<String, long[]>();
+        // the slots of each algorithm's totals
+        private static final int SOLVES = 0, PARSE = 1, BUILD = 2, SEARCH = 3, EXPANDED = 4, EDGES = 5,
+                                 PEAK = 6, NO_PATH = 7;
+
+        public Summary(PrintStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public synchronized void solveFinished(SolveMetrics m) {
+            long[] t = totals.computeIfAbsent(m.algorithm, k -> new long[8]);
+            t[SOLVES]++;
+            t[PARSE] += m.parseNanos;
+            t[BUILD] += m.buildNanos;
+            t[SEARCH] += m.searchNanos;
+            t[EXPANDED] += m.nodesExpanded;
+            t[EDGES] += m.edgesScanned;
+            t[PEAK] = Math.max(t[PEAK], m.peakFrontier);
+            if (m.pathLength < 0) {
+                t[NO_PATH]++;
+            }
+        }
+
+        @Override
+        public synchronized String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format(Locale.ROOT, "%-10s %7s %8s %11s %11s %11s %12s %12s %9s%n", "algorithm",
+                                    "solves", "no path", "parse ms", "build ms", "search ms", "expanded",
+                                    "edges", "peak"));
+            for (Map.Entry<String, long[]> entry : totals.entrySet()) {
+                long[] t = entry.getValue();
+                double n = t[SOLVES];
+                sb.append(String.format(Locale.ROOT, "%-10s %7d %8d %11.3f %11.3f %11.3f %12.1f %12.1f %9d%n",
+                                        entry.getKey(), t[SOLVES], t[NO_PATH], t[PARSE] / n / 1e6,
+                                        t[BUILD] / n / 1e6, t[SEARCH] / n / 1e6, t[EXPANDED] / n,
+                                        t[EDGES] / n, t[PEAK]));
+            }
+            return sb.toString();
+        }
+
+        @Override
+        public void close() {
+            out.print(this);
+            out.flush();
+        }
+    }
+
+    /**
+     * Commits a maze.Solve event per solve.  The events are only recorded while a recording that
+     * enables them is running (for example java -XX:StartFlightRecording), and cost almost nothing
+     * otherwise.
+     */
+    static class JfrListener implements SearchListener {
+        @Override
+        public void solveFinished(SolveMetrics m) {
+            SolveEvent event = new SolveEvent();
+            if (event.isEnabled()) {
+                event.maze = m.maze;
+                event.algorithm = m.algorithm;
+                event.parseNanos = m.parseNanos;
+                event.buildNanos = m.buildNanos;
+                event.searchNanos = m.searchNanos;
+                event.nodesExpanded = m.nodesExpanded;
+                event.edgesScanned = m.edgesScanned;
+                event.peakFrontier = m.peakFrontier;
+                event.pathLength = m.pathLength;
+                event.commit();
+            }
+        }
+    }
+
+    @Name("maze.Solve")
+    @Label("Maze Solve")
+    @Category("Maze")
+    @Description("One maze solved, with the time of each phase and the search counters")
+    static class SolveEvent extends jdk.jfr.Event {
+        @Label("Maze")
+        String maze;
+        @Label("Algorithm")
+        String algorithm;
+        @Label("Parse Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long parseNanos;
+        @Label("Build Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long buildNanos;
+        @Label("Search Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long searchNanos;
+        @Label("Nodes Expanded")
+        int nodesExpanded;
+        @Label("Edges Scanned")
+        long edgesScanned;
+        @Label("Peak Frontier")
+        int peakFrontier;
+        @Label("Path Length")
+        int pathLength;
+    }
+}
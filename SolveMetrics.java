@@ -0,0 +1,54 @@
+import java.util.*;
+
+
+/**
+ * What one solve cost: the time spent parsing the maze, building its graph and searching it, and
+ * the counters the search kept along the way.  Instances are only made while a SearchListener is
+ * registered with SearchMetrics, so a solve with metrics off never builds one.
+ */
+class SolveMetrics {
+    public final String maze;
+    public final String algorithm;
+    public final long parseNanos;
+    public final long buildNanos;     // 0 when the loader builds the graph while parsing
+    public final long searchNanos;
+    public final int nodesExpanded;
+    public final long edgesScanned;
+    public final int peakFrontier;    // the most nodes waiting on the stack or queue at once
+    public final int pathLength;      // -1 when there is no path
+
+    public SolveMetrics(String maze, String algorithm, long parseNanos, long buildNanos, long searchNanos,
+                        int nodesExpanded, long edgesScanned, int peakFrontier, int pathLength) {
+        this.maze = maze;
+        this.algorithm = algorithm;
+        this.parseNanos = parseNanos;
+        this.buildNanos = buildNanos;
+        this.searchNanos = searchNanos;
+        this.nodesExpanded = nodesExpanded;
+        this.edgesScanned = edgesScanned;
+        this.peakFrontier = peakFrontier;
+        this.pathLength = pathLength;
+    }
+
+    /**
+     * Takes in the timings of a solve and the SearchResult of its search, and returns their metrics
+     */
+    public static SolveMetrics of(String maze, String algorithm, long parseNanos, long buildNanos,
+                                  long searchNanos, MazeGraph.SearchResult result) {
+        int pathLength = (result.path == null) ? -1 : result.path.size();
+        return new SolveMetrics(maze, algorithm, parseNanos, buildNanos, searchNanos, result.expanded,
+                                result.edgesScanned, result.peakFrontier, pathLength);
+    }
+
+    public long getTotalNanos() {
+        return parseNanos + buildNanos + searchNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%s %s: parse %.3f ms, build %.3f ms, search %.3f ms, "
+                             + "%d expanded, %d edges, peak frontier %d, path %d", maze, algorithm,
+                             parseNanos / 1e6, buildNanos / 1e6, searchNanos / 1e6, nodesExpanded,
+                             edgesScanned, peakFrontier, pathLength);
+    }
+}
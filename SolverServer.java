@@ -0,0 +1,379 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * A long-running maze solver on a localhost HTTP port, so that a solve costs only the search
+ * instead of JVM startup plus parsing.  Mazes are parsed once with MazeLoader and kept, with their
+ * component index, in a cache keyed by a hash of their content and bounded by memory; the least
+ * recently used mazes are dropped first.  Requests are handled concurrently, on virtual threads
+ * when the JVM has them.
+ *
+ *   POST /mazes                           body is a maze file; returns its id
+ *   POST /solve?start=r,c&goal=r,c        body is a maze file; solves it
+ *   GET  /solve?maze=<id>&start=r,c&goal=r,c   solves a maze sent earlier
+ *   GET  /stats                           request, cache and latency counters
+ *
+ * start and goal are optional.  Without them every S (or G) in the maze is used, and the nearest
+ * start and goal are found with one multi-source search.  A solve answers with a small JSON object
+ * whose path lists the squares from the start to the goal, both included.
+ *
+ * Usage: java SolverServer [port] [cache megabytes]
+ */
+class SolverServer {
+    private static final int MAX_BODY = 64 << 20;
+    private static final int LATENCY_SAMPLES = 8192;
+
+    protected HttpServer server;
+    protected ExecutorService executor;
+    protected long maxBytes;            // the most memory the cached mazes may use
+    protected long usedBytes;           // the memory the cached mazes use now
+    protected LinkedHashMap<String, CachedMaze> mazes;
+    protected long hits;
+    protected long misses;
+    protected long evictions;
+    protected AtomicLong requests = new AtomicLong();
+    protected AtomicLong errors = new AtomicLong();
+    protected long startNanos;
+    protected long[] latencies = new long[LATENCY_SAMPLES];   // the most recent request latencies, round robin
+    protected long latencyCount;
+
+    /*
+     * A parsed maze and what has been built from it
+     */
+    static class CachedMaze {
+        String id;
+        GridGraph grid;
+        ComponentIndex components;
+        long parseNanos;
+        long buildNanos;
+
+        // one byte per square for the grid, and for the component index an int per square plus an
+        // int per component; every wall is a component of its own, so there can be nearly as many
+        long bytes() {
+            return 64L + 5L * grid.getSize() + 4L * components.componentSize.length;
+        }
+    }
+
+    /**
+     * Constructor takes in the port to listen on (0 for any free port) and the number of bytes the
+     * cached mazes may use.  The server only listens on the loopback address.
+     */
+    public SolverServer(int port, long maxBytes) throws IOException {
+        this.maxBytes = maxBytes;
+        // access order, so that iteration starts at the least recently used maze
+        this.mazes = new LinkedHashMap<String, CachedMaze>(16, 0.75f, true);
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.executor = BatchSolver.newIoExecutor();
+        server.setExecutor(executor);
+        server.createContext("/mazes", this::handle);
+        server.createContext("/solve", this::handle);
+        server.createContext("/stats", this::handle);
+    }
+
+    public void start() {
+        startNanos = System.nanoTime();
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdown();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /*
+     * An error that is reported to the client with an HTTP status
+     */
+    static class RequestException extends Exception {
+        int status;
+
+        RequestException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        requests.incrementAndGet();
+        int status = 200;
+        String contentType = "application/json";
+        String response;
+        try {
+            String path = exchange.getRequestURI().getPath();
+            String method = exchange.getRequestMethod();
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            if (path.equals("/stats") && method.equals("GET")) {
+                contentType = "text/plain";
+                response = stats();
+            } else if (path.equals("/mazes") && method.equals("POST")) {
+                CachedMaze maze = mazeFor(readBody(exchange));
+                response = "{\"id\":\"" + maze.id + "\",\"rows\":" + maze.grid.getHeight() + ",\"cols\":"
+                           + maze.grid.getWidth() + "}";
+            } else if (path.equals("/solve") && method.equals("POST")) {
+                response = solve(mazeFor(readBody(exchange)), query);
+            } else if (path.equals("/solve") && method.equals("GET")) {
+                String id = query.get("maze");
+                if (id == null) {
+                    throw new RequestException(400, "missing maze id");
+                }
+                CachedMaze maze = cached(id);
+                if (maze == null) {
+                    throw new RequestException(404, "unknown maze " + id + "; send its content to /mazes");
+                }
+                response = solve(maze, query);
+            } else if (path.equals("/mazes") || path.equals("/solve") || path.equals("/stats")) {
+                throw new RequestException(405, method + " is not supported on " + path);
+            } else {
+                throw new RequestException(404, "no such endpoint " + path);
+            }
+        } catch (RequestException e) {
+            status = e.status;
+            response = "{\"error\":" + quote(e.getMessage()) + "}";
+        } catch (RuntimeException e) {
+            status = 500;
+            response = "{\"error\":" + quote(e.toString()) + "}";
+        }
+        if (status != 200) {
+            errors.incrementAndGet();
+        }
+
+        byte[] body = response.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType + "; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+        recordLatency(System.nanoTime() - start);
+    }
+
+    private static byte[] readBody(HttpExchange exchange) throws IOException, RequestException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] body = in.readNBytes(MAX_BODY + 1);
+            if (body.length > MAX_BODY) {
+                throw new RequestException(413, "maze is larger than " + (MAX_BODY >> 20) + " MB");
+            }
+            return body;
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<String, String>();
+        if (rawQuery == null) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                query.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                          URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return query;
+    }
+
+    /**
+     * Returns the id of a maze: the first 64 bits of the SHA-256 hash of its content, in hex
+     */
+    public static String mazeId(byte[] content) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(content);
+            StringBuilder id = new StringBuilder(16);
+            for (int i = 0; i < 8; i++) {
+                id.append(String.format("%02x", hash[i]));
+            }
+            return id.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is always available", e);
+        }
+    }
+
+    private synchronized CachedMaze cached(String id) {
+        CachedMaze maze = mazes.get(id);
+        if (maze != null) {
+            hits++;
+        }
+        return maze;
+    }
+
+    /**
+     * Takes in the content of a maze file and returns its cached maze, parsing it on a miss.  Two
+     * requests that miss on the same maze at once may both parse it; the second simply replaces
+     * the first in the cache.
+     */
+    private CachedMaze mazeFor(byte[] content) throws RequestException {
+        String id = mazeId(content);
+        CachedMaze maze = cached(id);
+        if (maze != null) {
+            return maze;
+        }
+        maze = new CachedMaze();
+        maze.id = id;
+        long start = System.nanoTime();
+        try {
+            maze.grid = MazeLoader.parse("maze " + id, content);
+        } catch (IOException e) {
+            throw new RequestException(400, e.getMessage());
+        }
+        long parsed = System.nanoTime();
+        maze.components = new ComponentIndex(maze.grid);
+        maze.parseNanos = parsed - start;
+        maze.buildNanos = System.nanoTime() - parsed;
+        store(maze);
+        return maze;
+    }
+
+    private synchronized void store(CachedMaze maze) {
+        misses++;
+        CachedMaze old = mazes.remove(maze.id);
+        if (old != null) {
+            usedBytes -= old.bytes();
+        }
+        Iterator<CachedMaze> eldest = mazes.values().iterator();
+        while (usedBytes + maze.bytes() > maxBytes && eldest.hasNext()) {
+            usedBytes -= eldest.next().bytes();
+            eldest.remove();
+            evictions++;
+        }
+        mazes.put(maze.id, maze);
+        usedBytes += maze.bytes();
+    }
+
+    /**
+     * Solves a cached maze between the squares named in the query, or between its own starts and
+     * goals, and returns the answer as JSON
+     */
+    private String solve(CachedMaze maze, Map<String, String> query) throws RequestException {
+        GridGraph grid = maze.grid;
+        int[] starts = grid.startNodes;
+        int[] goals = grid.goalNodes;
+        if (query.containsKey("start")) {
+            starts = new int[] {square(grid, query.get("start"))};
+        }
+        if (query.containsKey("goal")) {
+            goals = new int[] {square(grid, query.get("goal"))};
+        }
+
+        long start = System.nanoTime();
+        MazeGraph.SearchResult result;
+        int from = -1;
+        int to = -1;
+        if (starts.length == 1 && goals.length == 1 && !maze.components.connected(starts[0], goals[0])) {
+            //the component index settles it without a search
+            result = new MazeGraph.SearchResult(null, 0);
+        } else {
+            MazeGraph.MultiSearchResult multi = MazeGraph.multiSourceBFS(grid, starts, goals);
+            result = multi;
+            from = multi.start;
+            to = multi.goal;
+        }
+        long searchNanos = System.nanoTime() - start;
+        SearchMetrics.record(maze.id, "Multi-source BFS", maze.parseNanos, maze.buildNanos, searchNanos, result);
+
+        StringBuilder json = new StringBuilder();
+        json.append("{\"maze\":\"").append(maze.id).append('"');
+        if (result.path == null) {
+            json.append(",\"status\":\"NO_PATH\"");
+        } else {
+            json.append(",\"status\":\"OK\",\"length\":").append(result.path.size());
+        }
+        json.append(",\"expanded\":").append(result.expanded);
+        json.append(",\"searchMicros\":").append(searchNanos / 1000);
+        if (result.path != null) {
+            //findPath form runs from the goal's predecessor back to the start; the answer runs forward
+            json.append(",\"path\":[");
+            for (int i = result.path.size() - 1; i >= 0; i--) {
+                appendSquare(json, grid, result.path.get(i)).append(',');
+            }
+            appendSquare(json, grid, to).append(']');
+        }
+        return json.append('}').toString();
+    }
+
+    //Takes in "row,col" and returns its grid node, which must be an open square
+    private static int square(GridGraph grid, String rowCol) throws RequestException {
+        String[] parts = rowCol.split(",");
+        try {
+            if (parts.length == 2) {
+                int node = grid.nodeAt(Integer.parseInt(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+                if (grid.isOpen(node)) {
+                    return node;
+                }
+                throw new RequestException(400, "(" + rowCol + ") is not an open square of the maze");
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new RequestException(400, "expected row,col but got " + rowCol);
+    }
+
+    private static StringBuilder appendSquare(StringBuilder json, GridGraph grid, int node) {
+        return json.append('[').append(grid.rowOf(node)).append(',').append(grid.colOf(node)).append(']');
+    }
+
+    private static String quote(String value) {
+        return '"' + String.valueOf(value).replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n") + '"';
+    }
+
+    private synchronized void recordLatency(long nanos) {
+        latencies[(int) (latencyCount++ % LATENCY_SAMPLES)] = nanos;
+    }
+
+    /**
+     * Returns the server's counters as plain text: requests and throughput since it started, the
+     * cache's contents, and the latency percentiles of the most recent requests
+     */
+    public synchronized String stats() {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        int samples = (int) Math.min(latencyCount, LATENCY_SAMPLES);
+        long[] sorted = Arrays.copyOf(latencies, samples);
+        Arrays.sort(sorted);
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "requests %d%nerrors %d%nuptimeSeconds %.1f%n"
+                                + "requestsPerSecond %.1f%n", requests.get(), errors.get(), seconds,
+                                requests.get() / Math.max(seconds, 1e-9)));
+        sb.append(String.format(Locale.ROOT, "cachedMazes %d%ncachedBytes %d%ncacheHits %d%ncacheMisses %d%n"
+                                + "cacheEvictions %d%n", mazes.size(), usedBytes, hits, misses, evictions));
+        sb.append(String.format(Locale.ROOT, "latencySamples %d%n", samples));
+        for (double p : new double[] {0.5, 0.9, 0.99, 1.0}) {
+            long nanos = (samples == 0) ? 0 : sorted[(int) Math.min(samples - 1, Math.ceil(p * samples) - 1)];
+            String name = (p == 1.0) ? "latencyMaxMillis" : "latencyP" + Math.round(p * 100) + "Millis";
+            sb.append(String.format(Locale.ROOT, "%s %.3f%n", name, nanos / 1e6));
+        }
+        return sb.toString();
+    }
+
+
+
+    public static void main(String[] args) throws IOException {
+        int port = (args.length > 0) ? Integer.parseInt(args[0]) : 8221;
+        long cacheBytes = ((args.length > 1) ? Long.parseLong(args[1]) : 256) << 20;
+        //-Dmaze.metrics=summary, csv:<file> or jfr turns on the per-solve metrics
+        SearchMetrics.configure(System.getProperty("maze.metrics"));
+        SolverServer solver = new SolverServer(port, cacheBytes);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            solver.stop();
+            try {
+                SearchMetrics.close();
+            } catch (IOException e) {
+                System.err.println("Cannot close metrics: " + e.getMessage());
+            }
+        }));
+        solver.start();
+        System.out.println("Listening on http://127.0.0.1:" + solver.getPort() + "/");
+    }
+}
@@ -0,0 +1,83 @@
+package maze;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+
+/**
+ * ListGraph against MatrixGraph on the same maze graph: reading every node's neighbors, and a BFS
+ * from start to goal.  An n-node MatrixGraph takes n * n bits, so the sizes stop well short of the
+ * ones in SearchBenchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class GraphBenchmark {
+    @Param({"51", "101", "201"})
+    int size;
+
+    @Param({"0.1", "0.25"})
+    double density;
+
+    MazeGraph.ProcessedGraph processed;
+    ListGraph list;
+    MatrixGraph matrix;
+    int[] neighbors;
+
+    @Setup
+    public void setup() {
+        processed = MazeGraph.mazeToGraph(MazeBenchmark.generate("open", size, density));
+        list = (ListGraph) processed.graph;
+        matrix = new MatrixGraph(list.getSize());
+        neighbors = new int[list.maxDegree()];
+        for (int v = 0; v < list.getSize(); v++) {
+            int count = list.copyNeighbors(v, neighbors);
+            for (int i = 0; i < count; i++) {
+                matrix.addEdge(v, neighbors[i]);
+            }
+        }
+    }
+
+    @Benchmark
+    public void listGetNeighbors(Blackhole bh) {
+        for (int v = 0; v < list.getSize(); v++) {
+            bh.consume(list.getNeighbors(v));
+        }
+    }
+
+    @Benchmark
+    public void listCopyNeighbors(Blackhole bh) {
+        for (int v = 0; v < list.getSize(); v++) {
+            bh.consume(list.copyNeighbors(v, neighbors));
+        }
+    }
+
+    @Benchmark
+    public void matrixGetNeighbors(Blackhole bh) {
+        for (int v = 0; v < matrix.getSize(); v++) {
+            bh.consume(matrix.getNeighbors(v));
+        }
+    }
+
+    @Benchmark
+    public void matrixCopyNeighbors(Blackhole bh) {
+        for (int v = 0; v < matrix.getSize(); v++) {
+            bh.consume(matrix.copyNeighbors(v, neighbors));
+        }
+    }
+
+    @Benchmark
+    public void listBfs(Blackhole bh) {
+        bh.consume(MazeGraph.BFS(list, processed.startNode, processed.goalNode));
+    }
+
+    @Benchmark
+    public void matrixBfs(Blackhole bh) {
+        bh.consume(MazeGraph.BFS(matrix, processed.startNode, processed.goalNode));
+    }
+}
@@ -0,0 +1,58 @@
+package maze;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+
+/**
+ * Reading a maze file and turning it into a graph: readMaze, collectOpenSquares and mazeToGraph,
+ * on open mazes from MazeGenerator with the same seed that MazeBenchmark uses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ParseBenchmark {
+    @Param({"101", "301", "1001"})
+    int size;
+
+    @Param({"0.1", "0.25"})
+    double density;
+
+    ArrayList<String> maze;
+    Path file;
+
+    @Setup
+    public void setup() throws IOException {
+        maze = MazeBenchmark.generate("open", size, density);
+        file = Files.createTempFile("maze", ".txt");
+        Files.write(file, maze);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.delete(file);
+    }
+
+    @Benchmark
+    public void readMaze(Blackhole bh) {
+        bh.consume(MazeGraph.readMaze(file.toString()));
+    }
+
+    @Benchmark
+    public void collectOpenSquares(Blackhole bh) {
+        bh.consume(MazeGraph.collectOpenSquares(maze));
+    }
+
+    @Benchmark
+    public void mazeToGraph(Blackhole bh) {
+        bh.consume(MazeGraph.mazeToGraph(maze));
+    }
+}
@@ -0,0 +1,42 @@
+package maze;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+
+/**
+ * DFS and BFS from the start to the goal of the ListGraph that mazeToGraph builds.  The graph is
+ * built once per trial, so only the searches are measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SearchBenchmark {
+    @Param({"101", "301", "1001"})
+    int size;
+
+    @Param({"0.1", "0.25"})
+    double density;
+
+    MazeGraph.ProcessedGraph graph;
+
+    @Setup
+    public void setup() {
+        graph = MazeGraph.mazeToGraph(MazeBenchmark.generate("open", size, density));
+    }
+
+    @Benchmark
+    public void dfs(Blackhole bh) {
+        bh.consume(MazeGraph.DFS(graph));
+    }
+
+    @Benchmark
+    public void bfs(Blackhole bh) {
+        bh.consume(MazeGraph.BFS(graph));
+    }
+}